@@ -0,0 +1,116 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.movegen.AttackTables;
+import com.kelseyde.calvin.movegen.Attacks;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Slider attack lookups from every square, against the occupancy of each position in the perft suite. The sequential
+ * benchmarks walk each square's table in order, while the scattered benchmark visits squares in a shuffled order, so
+ * that successive lookups land in distant parts of the attack table as they do during search. The legacy benchmark runs
+ * the same scattered lookups against the old jagged per-square tables, for a before and after comparison.
+ * <p>
+ * The memory footprint of the old and new magic attack tables is printed during setup, for comparison against the L1 and
+ * L2 cache sizes of the machine running the benchmark. See {@link SliderAttacksBenchmark} for a comparison of
+ * the other slider attack implementations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AttacksBenchmark {
+
+    // Approximate object sizes on a 64-bit JVM with compressed references
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int MAGIC_LOOKUP_BYTES = 40;
+
+    private long[] occupancies;
+    private int[] squares;
+
+    @Setup
+    public void setup() {
+        Board[] boards = Positions.boards();
+        occupancies = new long[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            occupancies[i] = boards[i].getOccupied();
+        }
+        squares = new int[64];
+        for (int i = 0; i < 64; i++) {
+            // 37 is coprime to 64, so this visits every square once in a scattered order
+            squares[i] = (i * 37 + 11) & 63;
+        }
+        printFootprint();
+    }
+
+    @Benchmark
+    public void rookAttacks(Blackhole bh) {
+        for (long occupied : occupancies) {
+            for (int square = 0; square < 64; square++) {
+                bh.consume(Attacks.rookAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Benchmark
+    public void bishopAttacks(Blackhole bh) {
+        for (long occupied : occupancies) {
+            for (int square = 0; square < 64; square++) {
+                bh.consume(Attacks.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Benchmark
+    public void queenAttacks(Blackhole bh) {
+        for (long occupied : occupancies) {
+            for (int square = 0; square < 64; square++) {
+                bh.consume(Attacks.rookAttacks(square, occupied) | Attacks.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Benchmark
+    public void queenAttacksScattered(Blackhole bh) {
+        for (long occupied : occupancies) {
+            for (int square : squares) {
+                bh.consume(Attacks.rookAttacks(square, occupied) | Attacks.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public void queenAttacksScatteredLegacy(Blackhole bh) {
+        for (long occupied : occupancies) {
+            for (int square : squares) {
+                bh.consume(Attacks.sliderAttacks(square, occupied, Attacks.LegacyTables.ROOK_MAGIC_LOOKUP)
+                        | Attacks.sliderAttacks(square, occupied, Attacks.LegacyTables.BISHOP_MAGIC_LOOKUP));
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void printFootprint() {
+        // The old layout: a separate table per square and piece, each with an array header, reached through a
+        // MagicLookup record holding its mask, magic and shift, from one array of records per piece.
+        long legacyEntries = 0;
+        for (int square = 0; square < 64; square++) {
+            legacyEntries += (1L << (64 - Attacks.ROOK_SHIFTS[square])) + (1L << (64 - Attacks.BISHOP_SHIFTS[square]));
+        }
+        long legacyBytes = legacyEntries * Long.BYTES + 128 * ARRAY_HEADER_BYTES + 128 * MAGIC_LOOKUP_BYTES
+                + 2 * (ARRAY_HEADER_BYTES + 64 * Integer.BYTES);
+        // The new layout: one shared table, with the per-square masks and magics for the file, rank and bishop lookups,
+        // plus the bishop shifts and offsets, in flat arrays.
+        long packedBytes = (long) AttackTables.SLIDER_ATTACKS.length * Long.BYTES + ARRAY_HEADER_BYTES
+                + 64 * (6 * Long.BYTES + 2 * Integer.BYTES) + 8 * ARRAY_HEADER_BYTES;
+        System.out.printf("%nMagic attack tables: before %d KB, after %d KB, saved %d KB%n",
+                legacyBytes / 1024, packedBytes / 1024, (legacyBytes - packedBytes) / 1024);
+    }
+
+}
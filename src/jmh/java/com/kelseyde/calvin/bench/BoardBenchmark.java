@@ -0,0 +1,66 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Make/unmake of every legal move in every position of the perft suite. Move generation happens once in setup, so
+ * only the board update is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    private Board[] boards;
+    private Move[][] moves;
+
+    @Setup
+    public void setup() {
+        MoveGenerator movegen = new MoveGenerator();
+        boards = Positions.boards();
+        moves = new Move[boards.length][];
+        for (int i = 0; i < boards.length; i++) {
+            List<Move> legalMoves = movegen.generateMoves(boards[i]);
+            moves[i] = legalMoves.toArray(new Move[0]);
+        }
+    }
+
+    @Benchmark
+    public void makeUnmakeMove(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            Board board = boards[i];
+            for (Move move : moves[i]) {
+                board.makeMove(move);
+                bh.consume(board.key());
+                board.unmakeMove();
+            }
+        }
+    }
+
+    @Benchmark
+    public void makeUnmakeNullMove(Blackhole bh) {
+        for (Board board : boards) {
+            board.makeNullMove();
+            bh.consume(board.key());
+            board.unmakeNullMove();
+        }
+    }
+
+    @Benchmark
+    public void copy(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(board.copy());
+        }
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.BoardStack;
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.movegen.MoveList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perft over the perft suite using make/unmake on a single {@link Board}, compared with copy-make on a
+ * {@link BoardStack}. Every move is played down to depth 0, so that the cost of making (and unmaking) moves is included
+ * at the leaves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CopyMakeBenchmark {
+
+    @Param({"3"})
+    public int depth;
+
+    private final MoveGenerator movegen = new MoveGenerator();
+    private Board[] boards;
+    private BoardStack[] stacks;
+    private MoveList[] moveLists;
+
+    @Setup
+    public void setup() {
+        boards = Positions.boards();
+        stacks = new BoardStack[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            stacks[i] = new BoardStack(boards[i], depth);
+        }
+        moveLists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    @Benchmark
+    public long makeUnmake() {
+        long nodes = 0;
+        for (Board board : boards) {
+            nodes += perft(board, depth);
+        }
+        return nodes;
+    }
+
+    @Benchmark
+    public long copyMake() {
+        long nodes = 0;
+        for (BoardStack stack : stacks) {
+            nodes += perft(stack, depth);
+        }
+        return nodes;
+    }
+
+    private long perft(Board board, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        final MoveList moves = moveLists[depth];
+        movegen.generateMoves(board, moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.move(i));
+            nodes += perft(board, depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    private long perft(BoardStack stack, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        final MoveList moves = moveLists[depth];
+        movegen.generateMoves(stack.current(), moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            stack.push(moves.move(i));
+            nodes += perft(stack, depth - 1);
+            stack.pop();
+        }
+        return nodes;
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+import com.kelseyde.calvin.movegen.MoveList;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation over the whole perft suite, once per {@link MoveFilter}. Each invocation generates the moves for
+ * every position in the corpus, so scores are per corpus pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGeneratorBenchmark {
+
+    @Param({"ALL", "NOISY", "CAPTURES_ONLY", "QUIET"})
+    public MoveFilter filter;
+
+    private final MoveGenerator movegen = new MoveGenerator();
+    private final MoveGenerator.Generation generation = movegen.newGeneration();
+    private final MoveList moveList = new MoveList();
+    private Board[] boards;
+
+    @Setup
+    public void setup() {
+        boards = Positions.boards();
+    }
+
+    @Benchmark
+    public void generateMovesList(Blackhole bh) {
+        for (Board board : boards) {
+            List<Move> moves = movegen.generateMoves(board, filter);
+            bh.consume(moves);
+        }
+    }
+
+    @Benchmark
+    public void generateMovesMoveList(Blackhole bh) {
+        for (Board board : boards) {
+            movegen.generateMoves(board, filter, moveList, generation);
+            bh.consume(moveList.size());
+        }
+    }
+
+    @Benchmark
+    public void countMoves(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(movegen.countMoves(board, filter, generation));
+        }
+    }
+
+}
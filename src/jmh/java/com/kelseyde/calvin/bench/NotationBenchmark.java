@@ -0,0 +1,65 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.utils.notation.FEN;
+import com.kelseyde.calvin.utils.notation.SAN;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FEN parsing and writing, and SAN formatting of every legal move, over the perft suite.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotationBenchmark {
+
+    private String[] fens;
+    private Board[] boards;
+    private Move[][] moves;
+
+    @Setup
+    public void setup() {
+        MoveGenerator movegen = new MoveGenerator();
+        fens = Positions.fens();
+        boards = Positions.boards();
+        moves = new Move[boards.length][];
+        for (int i = 0; i < boards.length; i++) {
+            List<Move> legalMoves = movegen.generateMoves(boards[i]);
+            moves[i] = legalMoves.toArray(new Move[0]);
+        }
+    }
+
+    @Benchmark
+    public void fenToBoard(Blackhole bh) {
+        for (String fen : fens) {
+            bh.consume(FEN.toBoard(fen));
+        }
+    }
+
+    @Benchmark
+    public void boardToFen(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(FEN.toFEN(board));
+        }
+    }
+
+    @Benchmark
+    public void sanFromMove(Blackhole bh) {
+        for (int i = 0; i < boards.length; i++) {
+            Board board = boards[i];
+            for (Move move : moves[i]) {
+                bh.consume(SAN.fromMove(move, board));
+            }
+        }
+    }
+
+}
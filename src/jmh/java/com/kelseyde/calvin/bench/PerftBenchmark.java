@@ -0,0 +1,42 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.utils.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perft of every position in the perft suite to a fixed depth, for both perft types.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PerftBenchmark {
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"NON_BULK", "BULK"})
+    public Perft.Type type;
+
+    private final Perft perft = new Perft();
+    private Board[] boards;
+
+    @Setup
+    public void setup() {
+        boards = Positions.boards();
+    }
+
+    @Benchmark
+    public void perft(Blackhole bh) {
+        for (Board board : boards) {
+            bh.consume(perft.perft(board, depth, type).leafNodesCount());
+        }
+    }
+
+}
@@ -0,0 +1,45 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.utils.notation.FEN;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * The benchmark position corpus, read from the standard perft suite. Each line of the suite is a FEN followed by
+ * the expected node counts per depth.
+ */
+final class Positions {
+
+    static final String PERFT_SUITE = "src/test/resources/perft_suite.epd";
+
+    private Positions() {}
+
+    static List<String> lines() {
+        try {
+            return Files.readAllLines(Paths.get(PERFT_SUITE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read perft suite " + PERFT_SUITE, e);
+        }
+    }
+
+    static String[] fens() {
+        return lines().stream()
+                .map(line -> line.split(";")[0].trim())
+                .toArray(String[]::new);
+    }
+
+    static Board[] boards() {
+        String[] fens = fens();
+        Board[] boards = new Board[fens.length];
+        for (int i = 0; i < fens.length; i++) {
+            boards[i] = FEN.toBoard(fens[i]);
+        }
+        return boards;
+    }
+
+}
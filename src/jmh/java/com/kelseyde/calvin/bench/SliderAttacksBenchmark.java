@@ -0,0 +1,87 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.movegen.SliderAttacks;
+import com.kelseyde.calvin.utils.Perft;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link SliderAttacks} implementations: the cost of a single rook or bishop lookup, and the node rate of
+ * a bulk perft over the perft suite with each implementation behind move generation.
+ * <p>
+ * The implementation used by move generation is fixed when {@code Attacks} is initialised, so each backend runs in its
+ * own fork, and the system property is set in setup before any board or move generation class is touched.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SliderAttacksBenchmark {
+
+    private static final int LOOKUPS_PER_POSITION = 64 * 2;
+
+    @Param({"magic", "pext", "hyperbola", "koggestone", "classical"})
+    public String backend;
+
+    @Param({"2"})
+    public int depth;
+
+    private SliderAttacks sliders;
+    private long[] occupancies;
+    private Board[] boards;
+    private Perft perft;
+
+    /**
+     * Reports the nodes searched by perft as a rate, alongside the time per perft pass.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        System.setProperty("calvin.attacks", backend);
+        sliders = SliderAttacks.of(backend);
+        boards = Positions.boards();
+        occupancies = new long[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            occupancies[i] = boards[i].getOccupied();
+        }
+        perft = new Perft();
+    }
+
+    /**
+     * Scored per lookup, by dividing by the number of lookups over the corpus.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OperationsPerInvocation(5000 * LOOKUPS_PER_POSITION)
+    public void lookup(Blackhole bh) {
+        // Repeat the corpus up to a fixed number of positions, so that the per-lookup division is exact
+        for (int i = 0; i < 5000; i++) {
+            long occupied = occupancies[i % occupancies.length];
+            for (int square = 0; square < 64; square++) {
+                bh.consume(sliders.rookAttacks(square, occupied));
+                bh.consume(sliders.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public void perft(Nodes nodes, Blackhole bh) {
+        for (Board board : boards) {
+            long count = perft.perft(board, depth, Perft.Type.BULK).leafNodesCount();
+            nodes.nodes += count;
+            bh.consume(count);
+        }
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.kelseyde.calvin.bench;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency from a fresh JVM to the first generated moves, including the static initialisation of the board, key and
+ * attack classes. Each fork measures a single cold call, comparing precomputed attack tables loaded from the classpath
+ * with tables computed at startup.
+ * <p>
+ * Nothing in setup may touch the engine classes, so that their initialisation is part of the measured call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    @Param({"true", "false"})
+    public String precomputed;
+
+    @Setup
+    public void setup() {
+        System.setProperty("calvin.attacks.precomputed", precomputed);
+    }
+
+    @Benchmark
+    public List<Move> firstMoves() {
+        return new MoveGenerator().generateMoves(Board.from(FEN.STARTPOS));
+    }
+
+}
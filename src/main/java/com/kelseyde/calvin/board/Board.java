@@ -14,24 +14,53 @@ import java.util.Arrays;
  */
 public class Board {
 
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int CAPACITY_INCREMENT = 64;
+
     private ChessVariant variant;
     private long[] bitboards;
-    private Piece[] pieces;
-    private BoardState state;
-    private BoardState[] states;
+    private byte[] pieces;
     private Move[] moves;
     private boolean white;
     private int ply;
 
+    // The per-ply state history, stored in preallocated primitive arrays indexed by ply. The entry at index 'ply' is
+    // the current state, while the entries below it are the states before each move in the history was made.
+    private long[] keys;
+    private long[] pawnKeys;
+    private long[] whiteNonPawnKeys;
+    private long[] blackNonPawnKeys;
+    private long[] materialKeys;
+    private int[] enPassantFiles;
+    private int[] rights;
+    private int[] halfMoveClocks;
+    private Piece[] captures;
+
     public Board() {
-        this.variant     = ChessVariant.STANDARD;
-        this.bitboards   = new long[Piece.COUNT + 2];
-        this.pieces      = new Piece[Square.COUNT];
-        this.moves       = new Move[256];
-        this.states      = new BoardState[256];
-        this.state       = new BoardState();
-        this.white       = true;
-        this.ply         = 0;
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty board with room for the given number of plies of history before the history arrays must grow.
+     */
+    Board(int capacity) {
+        this.variant          = ChessVariant.STANDARD;
+        this.bitboards        = new long[Piece.COUNT + 2];
+        this.pieces           = new byte[Square.COUNT];
+        this.moves            = new Move[capacity];
+        this.keys             = new long[capacity];
+        this.pawnKeys         = new long[capacity];
+        this.whiteNonPawnKeys = new long[capacity];
+        this.blackNonPawnKeys = new long[capacity];
+        this.materialKeys     = new long[capacity];
+        this.enPassantFiles   = new int[capacity];
+        this.rights           = new int[capacity];
+        this.halfMoveClocks   = new int[capacity];
+        this.captures         = new Piece[capacity];
+        this.white            = true;
+        this.ply              = 0;
+        this.enPassantFiles[0] = -1;
+        this.rights[0]        = Castling.startpos();
     }
 
     /**
@@ -42,10 +71,11 @@ public class Board {
 
         final int from = move.from();
         final int to = move.to();
-        final Piece piece = pieces[from];
+        final Piece piece = pieceAt(from);
         if (piece == null) return false;
-        final Piece captured = move.isEnPassant() ? Piece.PAWN : pieces[to];
-        states[ply] = state.copy();
+        final Piece captured = move.isEnPassant() ? Piece.PAWN : pieceAt(to);
+        moves[ply] = move;
+        pushState();
 
         if (move.isPawnDoubleMove())  makePawnDoubleMove(from, to);
         else if (move.isCastling())   makeCastleMove(from, to);
@@ -54,8 +84,6 @@ public class Board {
         else                          makeStandardMove(from, to, piece, captured);
 
         updateState(from, to, piece, captured, move);
-        moves[ply++] = move;
-        checkMaxPly();
         white = !white;
 
         return true;
@@ -69,7 +97,7 @@ public class Board {
     public void unmakeMove() {
 
         white = !white;
-        final Move move = moves[--ply];
+        final Move move = moves[ply - 1];
 
         final int from = move.from();
         final int to = move.to();
@@ -80,14 +108,14 @@ public class Board {
         else if (move.isEnPassant())  unmakeEnPassantMove(from, to);
         else                          unmakeStandardMove(from, to, piece);
 
-        state = states[ply];
+        ply--;
 
     }
 
     private void makePawnDoubleMove(int from, int to) {
         // Handle moving pawn
         updateBitboards(from, to, Piece.PAWN, white);
-        updateMailbox(from, to, Piece.PAWN);
+        updateMailbox(from, to, Piece.PAWN, white);
         updateKeys(from, to, Piece.PAWN, white);
     }
 
@@ -103,13 +131,13 @@ public class Board {
 
         // Handle moving king
         updateBitboards(from, to, Piece.KING, white);
-        updateMailbox(from, to, Piece.KING);
+        updateMailbox(from, to, Piece.KING, white);
 
         // Handle moving rook
         final int rookFrom = Castling.rookFrom(kingside, white);
         final int rookTo = Castling.rookTo(kingside, white);
         updateBitboards(rookFrom, rookTo, Piece.ROOK, white);
-        updateMailbox(rookFrom, rookTo, Piece.ROOK);
+        updateMailbox(rookFrom, rookTo, Piece.ROOK, white);
 
         updateKeys(from, to, Piece.KING, white);
         updateKeys(rookFrom, rookTo, Piece.ROOK, white);
@@ -120,23 +148,23 @@ public class Board {
 
         // Unset king
         updateBitboard(from, Piece.KING, white);
-        updateMailbox(from, null);
+        clearMailbox(from);
 
         // Unset rook
         // (in Chess960 the 'to' square of a castling move is the rook square)
         final int rookTo = Castling.rookTo(kingside, white);
         updateBitboard(to, Piece.ROOK, white);
-        updateMailbox(to, null);
+        clearMailbox(to);
 
         final int kingTo = Castling.kingTo(kingside, white);
 
         // Set king
         updateBitboard(kingTo, Piece.KING, white);
-        updateMailbox(kingTo, Piece.KING);
+        updateMailbox(kingTo, Piece.KING, white);
 
         // Set rook
         updateBitboard(rookTo, Piece.ROOK, white);
-        updateMailbox(rookTo, Piece.ROOK);
+        updateMailbox(rookTo, Piece.ROOK, white);
 
         updateKeys(from, kingTo, Piece.KING, white);
         updateKeys(to, rookTo, Piece.ROOK, white);
@@ -145,27 +173,27 @@ public class Board {
     private void makeEnPassantMove(int from, int to) {
         // Handle capturing pawn
         updateBitboards(from, to, Piece.PAWN, white);
-        updateMailbox(from, to, Piece.PAWN);
+        updateMailbox(from, to, Piece.PAWN, white);
         updateKeys(from, to, Piece.PAWN, white);
         // Handle captured pawn
         final int pawnSquare = white ? to - 8 : to + 8;
         updateBitboard(pawnSquare, Piece.PAWN, !white);
-        updateMailbox(pawnSquare, null);
-        updateKeys(pawnSquare, Piece.PAWN, !white);
+        clearMailbox(pawnSquare);
+        updateKeys(pawnSquare, Piece.PAWN, !white, false);
     }
 
     private void makePromotionMove(int from, int to, Piece promoted, Piece captured) {
         // Remove promoting pawn
         updateBitboard(from, Piece.PAWN, white);
-        updateKeys(from, Piece.PAWN, white);
+        updateKeys(from, Piece.PAWN, white, false);
         // Add promoted piece
         updateBitboard(to, promoted, white);
-        updateMailbox(from, to, promoted);
-        updateKeys(to, promoted, white);
+        updateMailbox(from, to, promoted, white);
+        updateKeys(to, promoted, white, true);
         if (captured != null) {
             // Handle captured piece
             updateBitboard(to, captured, !white);
-            updateKeys(to, captured, !white);
+            updateKeys(to, captured, !white, false);
         }
     }
 
@@ -173,28 +201,46 @@ public class Board {
         // Handle moving piece
         updateBitboards(from, to, piece, white);
         updateKeys(from, to, piece, white);
-        updateMailbox(from, to, piece);
+        updateMailbox(from, to, piece, white);
         if (captured != null) {
             // Remove captured piece
             updateBitboard(to, captured, !white);
-            updateKeys(to, captured, !white);
+            updateKeys(to, captured, !white, false);
         }
     }
 
     private void updateState(int from, int to, Piece piece, Piece captured, Move move) {
-        state.captured = captured;
+        captures[ply] = captured;
         final boolean resetClock = captured != null || Piece.PAWN.equals(piece);
-        state.halfMoveClock = resetClock ? 0 : ++state.halfMoveClock;
+        halfMoveClocks[ply] = resetClock ? 0 : halfMoveClocks[ply] + 1;
 
         final int castleRights = updateCastleRights(from, to, piece);
-        state.key ^= Key.rights(state.rights, castleRights);
-        state.rights = castleRights;
+        keys[ply] ^= Key.rights(rights[ply], castleRights);
+        rights[ply] = castleRights;
 
         final int enPassantFile = move.isPawnDoubleMove() ? File.of(to) : -1;
-        state.key ^= Key.enPassant(state.enPassantFile, enPassantFile);
-        state.enPassantFile = enPassantFile;
+        keys[ply] ^= Key.enPassant(enPassantFiles[ply], enPassantFile);
+        enPassantFiles[ply] = enPassantFile;
+
+        keys[ply] ^= Key.sideToMove();
+    }
 
-        state.key ^= Key.sideToMove();
+    /**
+     * Copies the current state one ply forward, so that the move about to be made can update it in-place. The previous
+     * state is left untouched in the history arrays, meaning that unmaking the move is as simple as decrementing the ply.
+     */
+    private void pushState() {
+        ensureCapacity(ply + 1);
+        final int prev = ply++;
+        keys[ply]             = keys[prev];
+        pawnKeys[ply]         = pawnKeys[prev];
+        whiteNonPawnKeys[ply] = whiteNonPawnKeys[prev];
+        blackNonPawnKeys[ply] = blackNonPawnKeys[prev];
+        materialKeys[ply]     = materialKeys[prev];
+        enPassantFiles[ply]   = enPassantFiles[prev];
+        rights[ply]           = rights[prev];
+        halfMoveClocks[ply]   = halfMoveClocks[prev];
+        captures[ply]         = captures[prev];
     }
 
     private void unmakeCastlingMove(int from, int to) {
@@ -207,13 +253,13 @@ public class Board {
     private void unmakeStandardCastleMove(int from, int to) {
         // Put back king
         updateBitboards(to, from, Piece.KING, white);
-        updateMailbox(to, from, Piece.KING);
+        updateMailbox(to, from, Piece.KING, white);
         // Put back rook
         final boolean kingside = Castling.isKingside(from, to);
         final int rookFrom = Castling.rookFrom(kingside, white);
         final int rookTo = Castling.rookTo(kingside, white);
         updateBitboards(rookTo, rookFrom, Piece.ROOK, white);
-        updateMailbox(rookTo, rookFrom, Piece.ROOK);
+        updateMailbox(rookTo, rookFrom, Piece.ROOK, white);
     }
 
     private void unmakeChess960CastleMove(int from, int to) {
@@ -221,51 +267,53 @@ public class Board {
         final int kingTo = Castling.kingTo(kingside, white);
         // Unset king
         updateBitboard(kingTo, Piece.KING, white);
-        updateMailbox(kingTo, null);
+        clearMailbox(kingTo);
         // Unset rook
         final int rookTo = Castling.rookTo(kingside, white);
         updateBitboard(rookTo, Piece.ROOK, white);
-        updateMailbox(rookTo, null);
+        clearMailbox(rookTo);
         // Set king
         updateBitboard(from, Piece.KING, white);
-        updateMailbox(from, Piece.KING);
+        updateMailbox(from, Piece.KING, white);
         // Set rook
         updateBitboard(to, Piece.ROOK, white);
-        updateMailbox(to, Piece.ROOK);
+        updateMailbox(to, Piece.ROOK, white);
     }
 
     private void unmakePromotionMove(int from, int to, Piece promotionPiece) {
         // Remove promoted piece
         updateBitboard(to, promotionPiece, white);
         // Put back promoting pawn
-        updateMailbox(from, Piece.PAWN);
+        updateMailbox(from, Piece.PAWN, white);
         updateBitboard(from, Piece.PAWN, white);
         // Put back captured piece
-        if (state.getCaptured() != null) {
-            updateBitboard(to, state.getCaptured(), !white);
+        final Piece captured = captures[ply];
+        if (captured != null) {
+            updateBitboard(to, captured, !white);
         }
         // If no piece was captured, this correctly nullifies the promo square
-        updateMailbox(to, state.getCaptured());
+        updateMailbox(to, captured, !white);
     }
 
     private void unmakeEnPassantMove(int from, int to) {
         // Put back capturing pawn
         updateBitboards(to, from, Piece.PAWN, white);
-        updateMailbox(to, from, Piece.PAWN);
+        updateMailbox(to, from, Piece.PAWN, white);
         // Add back captured pawn
         final int captureSquare = white ? to - 8 : to + 8;
         updateBitboard(captureSquare, Piece.PAWN, !white);
-        updateMailbox(captureSquare, Piece.PAWN);
+        updateMailbox(captureSquare, Piece.PAWN, !white);
     }
 
     private void unmakeStandardMove(int from, int to, Piece piece) {
         // Put back moving piece
         updateBitboards(to, from, piece, white);
-        updateMailbox(to, from, piece);
-        if (state.getCaptured() != null) {
+        updateMailbox(to, from, piece, white);
+        final Piece captured = captures[ply];
+        if (captured != null) {
             // Add back captured piece
-            updateBitboard(to, state.getCaptured(), !white);
-            updateMailbox(to, state.getCaptured());
+            updateBitboard(to, captured, !white);
+            updateMailbox(to, captured, !white);
         }
     }
 
@@ -275,11 +323,11 @@ public class Board {
      */
     public void makeNullMove() {
         white = !white;
-        final long key = state.key ^ Key.nullMove(state.enPassantFile);
-        final long[] nonPawnKeys = new long[] {state.nonPawnKeys[0], state.nonPawnKeys[1]};
-        final BoardState newState = new BoardState(key, state.pawnKey, nonPawnKeys, null, -1, state.getRights(), 0);
-        states[ply++] = state;
-        state = newState;
+        pushState();
+        keys[ply] ^= Key.nullMove(enPassantFiles[ply]);
+        captures[ply] = null;
+        enPassantFiles[ply] = -1;
+        halfMoveClocks[ply] = 0;
     }
 
     /**
@@ -287,7 +335,7 @@ public class Board {
      */
     public void unmakeNullMove() {
         white = !white;
-        state = states[--ply];
+        ply--;
     }
 
     public void updateBitboards(int from, int to, Piece piece, boolean white) {
@@ -309,33 +357,43 @@ public class Board {
 
     private void updateKeys(int from, int to, Piece piece, boolean white) {
         final long hash = Key.piece(from, to, piece, white);
-        state.key ^= hash;
+        keys[ply] ^= hash;
         if (piece == Piece.PAWN) {
-            state.pawnKey ^= hash;
+            pawnKeys[ply] ^= hash;
+        } else if (white) {
+            whiteNonPawnKeys[ply] ^= hash;
         } else {
-            final int colourIndex = Colour.index(white);
-            state.nonPawnKeys[colourIndex] ^= hash;
+            blackNonPawnKeys[ply] ^= hash;
         }
     }
 
-    private void updateKeys(int square, Piece piece, boolean white) {
+    /**
+     * Updates the keys for a piece being added to or removed from the board, which also changes the material key.
+     */
+    private void updateKeys(int square, Piece piece, boolean white, boolean added) {
         final long hash = Key.piece(square, piece, white);
-        state.key ^= hash;
+        keys[ply] ^= hash;
+        materialKeys[ply] += added ? Key.material(piece, white) : -Key.material(piece, white);
         if (piece == Piece.PAWN) {
-            state.pawnKey ^= hash;
+            pawnKeys[ply] ^= hash;
+        } else if (white) {
+            whiteNonPawnKeys[ply] ^= hash;
         } else {
-            final int colourIndex = Colour.index(white);
-            state.nonPawnKeys[colourIndex] ^= hash;
+            blackNonPawnKeys[ply] ^= hash;
         }
     }
 
-    private void updateMailbox(int from, int to, Piece piece) {
-        pieces[from] = null;
-        pieces[to] = piece;
+    private void updateMailbox(int from, int to, Piece piece, boolean white) {
+        pieces[from] = Piece.NONE;
+        pieces[to] = Piece.coloured(piece, white);
     }
 
-    private void updateMailbox(int square, Piece piece) {
-        pieces[square] = piece;
+    private void updateMailbox(int square, Piece piece, boolean white) {
+        pieces[square] = Piece.coloured(piece, white);
+    }
+
+    private void clearMailbox(int square) {
+        pieces[square] = Piece.NONE;
     }
 
     public void removeKing(boolean white) {
@@ -355,7 +413,7 @@ public class Board {
     }
 
     private int updateCastleRights(int from, int to, Piece pieceType) {
-        int newRights = state.getRights();
+        int newRights = rights[ply];
         if (newRights == Castling.empty()) {
             // Both sides already lost castling rights, so nothing to calculate.
             return newRights;
@@ -386,7 +444,84 @@ public class Board {
         return newRights;
     }
 
+    /**
+     * Calculates the Zobrist key of the position after the given move, without making it. Handles castling (standard and
+     * Chess960), en passant and promotions, as well as the resulting changes to the castling rights, en passant file and
+     * side to move. Useful for probing a hash table before paying for {@link #makeMove(Move)}.
+     * <br>The move must be pseudo-legal in the current position.
+     */
+    public long keyAfter(Move move) {
+        final int from = move.from();
+        final int to = move.to();
+        final Piece piece = pieceAt(from);
+        long key = keys[ply] ^ pieceKeyDelta(move, piece, false) ^ Key.sideToMove();
+        key ^= Key.rights(rights[ply], updateCastleRights(from, to, piece));
+        key ^= Key.enPassant(enPassantFiles[ply], move.isPawnDoubleMove() ? File.of(to) : -1);
+        return key;
+    }
+
+    /**
+     * Calculates the pawn key of the position after the given move, without making it.
+     * <br>The move must be pseudo-legal in the current position.
+     */
+    public long pawnKeyAfter(Move move) {
+        return pawnKeys[ply] ^ pieceKeyDelta(move, pieceAt(move.from()), true);
+    }
+
+    /**
+     * Calculates the combined piece-square keys of every piece that is moved, captured or promoted by the given move,
+     * mirroring the key updates made in {@link #makeMove(Move)}.
+     * @param pawnsOnly if true, only include the keys of pawns, as for the pawn key
+     */
+    private long pieceKeyDelta(Move move, Piece piece, boolean pawnsOnly) {
+        final int from = move.from();
+        final int to = move.to();
+
+        if (move.isCastling()) {
+            if (pawnsOnly) {
+                return 0L;
+            }
+            final boolean kingside = Castling.isKingside(from, to);
+            final int rookTo = Castling.rookTo(kingside, white);
+            return switch (variant) {
+                case STANDARD -> Key.piece(from, to, Piece.KING, white)
+                        ^ Key.piece(Castling.rookFrom(kingside, white), rookTo, Piece.ROOK, white);
+                // In Chess960 the 'to' square of a castling move is the rook square
+                case CHESS960 -> Key.piece(from, Castling.kingTo(kingside, white), Piece.KING, white)
+                        ^ Key.piece(to, rookTo, Piece.ROOK, white);
+            };
+        }
+
+        if (move.isEnPassant()) {
+            final int pawnSquare = white ? to - 8 : to + 8;
+            return Key.piece(from, to, Piece.PAWN, white) ^ Key.piece(pawnSquare, Piece.PAWN, !white);
+        }
+
+        long delta = 0L;
+        final Piece captured = pieceAt(to);
+        if (captured != null && (!pawnsOnly || captured == Piece.PAWN)) {
+            delta ^= Key.piece(to, captured, !white);
+        }
+        if (move.isPromotion()) {
+            delta ^= Key.piece(from, Piece.PAWN, white);
+            if (!pawnsOnly) {
+                delta ^= Key.piece(to, move.promoPiece(), white);
+            }
+        } else if (!pawnsOnly || piece == Piece.PAWN) {
+            delta ^= Key.piece(from, to, piece, white);
+        }
+        return delta;
+    }
+
     public Piece pieceAt(int square) {
+        return Piece.type(pieces[square]);
+    }
+
+    /**
+     * Returns the coloured piece code on the given square (see {@link Piece#coloured(Piece, boolean)}), or
+     * {@link Piece#NONE} if the square is empty.
+     */
+    public byte colouredPieceAt(int square) {
         return pieces[square];
     }
 
@@ -468,20 +603,76 @@ public class Board {
         this.bitboards = bitboards;
     }
 
-    public void setPieces(Piece[] pieces) {
+    public void setMailbox(byte[] pieces) {
         this.pieces = pieces;
     }
 
+    /**
+     * Sets the mailbox from uncoloured pieces, taking the colour of each piece from the colour bitboards, which must
+     * therefore be set first.
+     * @deprecated the board stores coloured piece codes, use {@link #setMailbox(byte[])}.
+     */
+    @Deprecated
+    public void setPieces(Piece[] pieces) {
+        final long whitePieces = bitboards[Piece.WHITE_PIECES];
+        for (int square = 0; square < Square.COUNT; square++) {
+            this.pieces[square] = Piece.coloured(pieces[square], (whitePieces & Bits.of(square)) != 0);
+        }
+    }
+
     public void setWhite(boolean white) {
         this.white = white;
     }
 
+    /**
+     * Overwrites the current state with the values of the given {@link BoardState} snapshot. If the snapshot has no
+     * material key (it is zero), the material key is calculated from the pieces on the board.
+     */
     public void setState(BoardState state) {
-        this.state = state;
+        writeState(ply, state);
+        if (state.getMaterialKey() == 0L) {
+            materialKeys[ply] = Key.generateMaterialKey(this);
+        }
     }
 
+    /**
+     * Overwrites the state history with the values of the given {@link BoardState} snapshots, stopping at the first
+     * null entry.
+     */
     public void setStates(BoardState[] states) {
-        this.states = states;
+        for (int i = 0; i < states.length && states[i] != null; i++) {
+            ensureCapacity(i);
+            writeState(i, states[i]);
+        }
+    }
+
+    public void setKey(long key) {
+        this.keys[ply] = key;
+    }
+
+    public void setPawnKey(long pawnKey) {
+        this.pawnKeys[ply] = pawnKey;
+    }
+
+    public void setNonPawnKeys(long[] nonPawnKeys) {
+        this.whiteNonPawnKeys[ply] = nonPawnKeys[Colour.WHITE];
+        this.blackNonPawnKeys[ply] = nonPawnKeys[Colour.BLACK];
+    }
+
+    public void setMaterialKey(long materialKey) {
+        this.materialKeys[ply] = materialKey;
+    }
+
+    public void setEnPassantFile(int enPassantFile) {
+        this.enPassantFiles[ply] = enPassantFile;
+    }
+
+    public void setRights(int rights) {
+        this.rights[ply] = rights;
+    }
+
+    public void setHalfMoveClock(int halfMoveClock) {
+        this.halfMoveClocks[ply] = halfMoveClock;
     }
 
     public void setMoves(Move[] moves) {
@@ -524,7 +715,21 @@ public class Board {
         return bitboards[Piece.WHITE_PIECES] | bitboards[Piece.BLACK_PIECES];
     }
 
+    public byte[] getMailbox() {
+        return pieces;
+    }
+
+    /**
+     * Returns the piece on each square, or null if the square is empty. The array is a copy, so modifying it has no
+     * effect on the board.
+     * @deprecated the board stores coloured piece codes, use {@link #getMailbox()} or {@link #pieceAt(int)}.
+     */
+    @Deprecated
     public Piece[] getPieces() {
+        final Piece[] pieces = new Piece[Square.COUNT];
+        for (int square = 0; square < Square.COUNT; square++) {
+            pieces[square] = pieceAt(square);
+        }
         return pieces;
     }
 
@@ -532,11 +737,25 @@ public class Board {
         return white;
     }
 
+    /**
+     * Returns a view of the current state, built on demand. Its setters write through to the board at the current ply,
+     * but its public fields are a snapshot (see {@link BoardState}). Prefer the primitive accessors (e.g.
+     * {@link #key()}) and setters (e.g. {@link #setKey(long)}) in hot paths.
+     */
     public BoardState getState() {
-        return state;
+        return readState(ply);
     }
 
+    /**
+     * Returns views of the state history, where the entry at index i is the state before the i-th move was made. The
+     * array has one entry per ply of history capacity, and the entries from the current ply onwards are null. Like
+     * {@link #getState()}, the views are built on demand, and their setters write through to the board at their ply.
+     */
     public BoardState[] getStates() {
+        final BoardState[] states = new BoardState[keys.length];
+        for (int i = 0; i < ply; i++) {
+            states[i] = readState(i);
+        }
         return states;
     }
 
@@ -549,15 +768,59 @@ public class Board {
     }
 
     public long key() {
-        return state.getKey();
+        return keys[ply];
     }
 
     public long pawnKey() {
-        return state.getPawnKey();
+        return pawnKeys[ply];
+    }
+
+    public long nonPawnKey(boolean white) {
+        return white ? whiteNonPawnKeys[ply] : blackNonPawnKeys[ply];
     }
 
     public long[] nonPawnKeys() {
-        return state.nonPawnKeys;
+        return new long[] {whiteNonPawnKeys[ply], blackNonPawnKeys[ply]};
+    }
+
+    /**
+     * Returns the material key, which identifies the number of pieces of each type and colour on the board regardless
+     * of where they stand (see {@link Key#material}).
+     */
+    public long materialKey() {
+        return materialKeys[ply];
+    }
+
+    /**
+     * Returns a copy of the Zobrist key history, where the entry at index i is the key before the i-th move was made, and
+     * the entry at index {@link #getPly()} is the current key.
+     */
+    public long[] keyHistory() {
+        return Arrays.copyOf(keys, ply + 1);
+    }
+
+    /**
+     * Returns the key history array itself, for the repetition checks in {@link Draw}, which must not write to it.
+     * Entries beyond the current ply are undefined.
+     */
+    long[] keys() {
+        return keys;
+    }
+
+    public int enPassantFile() {
+        return enPassantFiles[ply];
+    }
+
+    public int rights() {
+        return rights[ply];
+    }
+
+    public int halfMoveClock() {
+        return halfMoveClocks[ply];
+    }
+
+    public Piece captured() {
+        return captures[ply];
     }
 
     public void setVariant(ChessVariant variant) {
@@ -607,49 +870,111 @@ public class Board {
         return FEN.toBoard(fen);
     }
 
-    private void checkMaxPly() {
-        if (ply >= states.length) {
-            BoardState[] newStates = new BoardState[states.length + 64];
-            System.arraycopy(states, 0, newStates, 0, states.length);
-
-            Move[] newMoves = new Move[moves.length + 64];
-            System.arraycopy(moves, 0, newMoves, 0, moves.length);
-
-            states = newStates;
-            moves = newMoves;
+    private BoardState readState(int index) {
+        final long[] nonPawnKeys = new long[] {whiteNonPawnKeys[index], blackNonPawnKeys[index]};
+        return new BoardState(keys[index], pawnKeys[index], nonPawnKeys, materialKeys[index], captures[index],
+                enPassantFiles[index], rights[index], halfMoveClocks[index], this, index);
+    }
+
+    void writeState(int index, BoardState state) {
+        keys[index]             = state.getKey();
+        pawnKeys[index]         = state.getPawnKey();
+        whiteNonPawnKeys[index] = state.nonPawnKeys[Colour.WHITE];
+        blackNonPawnKeys[index] = state.nonPawnKeys[Colour.BLACK];
+        materialKeys[index]     = state.getMaterialKey();
+        enPassantFiles[index]   = state.getEnPassantFile();
+        rights[index]           = state.getRights();
+        halfMoveClocks[index]   = state.getHalfMoveClock();
+        captures[index]         = state.getCaptured();
+    }
+
+    private void ensureCapacity(int index) {
+        if (index >= keys.length) {
+            final int capacity = index + CAPACITY_INCREMENT;
+            keys             = Arrays.copyOf(keys, capacity);
+            pawnKeys         = Arrays.copyOf(pawnKeys, capacity);
+            whiteNonPawnKeys = Arrays.copyOf(whiteNonPawnKeys, capacity);
+            blackNonPawnKeys = Arrays.copyOf(blackNonPawnKeys, capacity);
+            materialKeys     = Arrays.copyOf(materialKeys, capacity);
+            enPassantFiles   = Arrays.copyOf(enPassantFiles, capacity);
+            rights           = Arrays.copyOf(rights, capacity);
+            halfMoveClocks   = Arrays.copyOf(halfMoveClocks, capacity);
+            captures         = Arrays.copyOf(captures, capacity);
+        }
+        if (index >= moves.length) {
+            moves = Arrays.copyOf(moves, index + CAPACITY_INCREMENT);
         }
     }
 
+    /**
+     * Overwrites this board with the current position of another board: the bitboards, mailbox, side to move, variant
+     * and current state. The other board's move and state history is not copied, so this board starts again at ply 0.
+     * Used by {@link BoardStack} to copy-make moves into preallocated boards.
+     */
+    void loadPosition(Board other) {
+        System.arraycopy(other.bitboards, 0, bitboards, 0, bitboards.length);
+        System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+        final int index = other.ply;
+        white               = other.white;
+        variant             = other.variant;
+        ply                 = 0;
+        keys[0]             = other.keys[index];
+        pawnKeys[0]         = other.pawnKeys[index];
+        whiteNonPawnKeys[0] = other.whiteNonPawnKeys[index];
+        blackNonPawnKeys[0] = other.blackNonPawnKeys[index];
+        materialKeys[0]     = other.materialKeys[index];
+        enPassantFiles[0]   = other.enPassantFiles[index];
+        rights[0]           = other.rights[index];
+        halfMoveClocks[0]   = other.halfMoveClocks[index];
+        captures[0]         = other.captures[index];
+    }
+
+    /**
+     * Creates a copy of this board, which can be played on (and unmade back to the start of the game) independently of
+     * this one. Only the live part of the history, up to the current ply, is copied, into arrays with a small amount of
+     * headroom, rather than the full capacity of this board's arrays. This board is only read, so it is safe to copy
+     * positions for other threads.
+     */
     public Board copy() {
-        final Board newBoard = new Board();
-        newBoard.setPawns(this.getPawns());
-        newBoard.setKnights(this.getKnights());
-        newBoard.setBishops(this.getBishops());
-        newBoard.setRooks(this.getRooks());
-        newBoard.setQueens(this.getQueens());
-        newBoard.setKings(this.getKings());
-        newBoard.setWhitePieces(this.getWhitePieces());
-        newBoard.setBlackPieces(this.getBlackPieces());
-        newBoard.setWhite(this.isWhite());
-        newBoard.setState(this.getState().copy());
-        BoardState[] newStates = new BoardState[this.getStates().length];
-        for (int i = 0; i < this.getStates().length; i++) {
-            if (this.getStates()[i] == null) {
-                break;
-            }
-            newStates[i] = this.getStates()[i].copy();
-        }
-        newBoard.setStates(newStates);
-        Move[] newMoves = new Move[this.getMoves().length];
-        for (int i = 0; i < this.getMoves().length; i++) {
-            if (this.getMoves()[i] == null) {
-                break;
-            }
-            newMoves[i] = new Move(this.getMoves()[i].value());
-        }
-        newBoard.setMoves(newMoves);
-        newBoard.setPieces(Arrays.copyOf(this.getPieces(), this.getPieces().length));
-        return newBoard;
+        return new Board(this);
+    }
+
+    private Board(Board other) {
+        final int length = other.ply + 1;
+        final int capacity = length + CAPACITY_INCREMENT;
+        this.variant          = other.variant;
+        this.bitboards        = other.bitboards.clone();
+        this.pieces           = other.pieces.clone();
+        this.white            = other.white;
+        this.ply              = other.ply;
+        this.moves            = copyOf(other.moves, other.ply, capacity);
+        this.keys             = copyOf(other.keys, length, capacity);
+        this.pawnKeys         = copyOf(other.pawnKeys, length, capacity);
+        this.whiteNonPawnKeys = copyOf(other.whiteNonPawnKeys, length, capacity);
+        this.blackNonPawnKeys = copyOf(other.blackNonPawnKeys, length, capacity);
+        this.materialKeys     = copyOf(other.materialKeys, length, capacity);
+        this.enPassantFiles   = copyOf(other.enPassantFiles, length, capacity);
+        this.rights           = copyOf(other.rights, length, capacity);
+        this.halfMoveClocks   = copyOf(other.halfMoveClocks, length, capacity);
+        this.captures         = copyOf(other.captures, length, capacity);
+    }
+
+    private static long[] copyOf(long[] array, int length, int capacity) {
+        final long[] copy = new long[capacity];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static int[] copyOf(int[] array, int length, int capacity) {
+        final int[] copy = new int[capacity];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    private static <T> T[] copyOf(T[] array, int length, int capacity) {
+        final T[] copy = Arrays.copyOf(array, capacity);
+        Arrays.fill(copy, length, Math.min(array.length, capacity), null);
+        return copy;
     }
 
     public void print() {
@@ -659,13 +984,13 @@ public class Board {
 
             for (int file = 0; file < 8; ++file) {
                 int sq = Square.of(rank, file);
-                Piece piece = pieceAt(sq);
-                if (piece == null) {
+                byte piece = colouredPieceAt(sq);
+                if (piece == Piece.NONE) {
                     System.out.print(" |  ");
                     continue;
                 }
-                boolean white = (getWhitePieces() & Bits.of(sq)) != 0;
-                System.out.print(" | " + (white ? piece.code().toUpperCase() : piece.code()));
+                String code = Piece.type(piece).code();
+                System.out.print(" | " + (Piece.isWhite(piece) ? code.toUpperCase() : code));
             }
 
             System.out.print(" | " + (rank + 1) + "\n");
@@ -0,0 +1,83 @@
+package com.kelseyde.calvin.board;
+
+/**
+ * A copy-make alternative to {@link Board#makeMove(Move)} and {@link Board#unmakeMove()}. The stack preallocates one
+ * compact board per ply; {@link #push(Move)} copies the current position into the next board and makes the move there,
+ * and {@link #pop()} simply steps back to the previous board, so there is no unmake logic at all.
+ * <p>
+ * Each board in the stack holds only its own position and the state of the move that led to it, not the full game
+ * history, so positions on the stack cannot be checked for repetition draws. The root board passed to the constructor is
+ * copied, and is never modified by the stack.
+ */
+public class BoardStack {
+
+    // Each stacked board only ever holds the copied position (ply 0) and the position after one move (ply 1).
+    private static final int BOARD_CAPACITY = 2;
+
+    private final Board[] boards;
+    private int top;
+
+    /**
+     * Creates a stack rooted at the current position of the given board.
+     * @param root the starting position
+     * @param maxDepth the maximum number of moves that can be pushed on top of the root
+     */
+    public BoardStack(Board root, int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException("Max depth must not be negative");
+        }
+        this.boards = new Board[maxDepth + 1];
+        for (int i = 0; i < boards.length; i++) {
+            boards[i] = new Board(BOARD_CAPACITY);
+        }
+        boards[0].loadPosition(root);
+        this.top = 0;
+    }
+
+    /**
+     * Copies the current position to the next board in the stack and makes the move on it.
+     * @return false if there is no piece on the move's start square, in which case the stack is unchanged
+     * @throws IllegalStateException if the stack is already at its maximum depth
+     */
+    public boolean push(Move move) {
+        if (top + 1 >= boards.length) {
+            throw new IllegalStateException("Board stack is full at depth " + top);
+        }
+        final Board next = boards[top + 1];
+        next.loadPosition(boards[top]);
+        if (!next.makeMove(move)) {
+            return false;
+        }
+        top++;
+        return true;
+    }
+
+    /**
+     * Returns to the position before the last pushed move.
+     * @throws IllegalStateException if the stack is at the root
+     */
+    public void pop() {
+        if (top == 0) {
+            throw new IllegalStateException("Cannot pop the root position");
+        }
+        top--;
+    }
+
+    /**
+     * Returns the board for the current position. The returned board is owned by the stack and is overwritten by later
+     * pushes, so callers should not make moves on it or hold on to it.
+     */
+    public Board current() {
+        return boards[top];
+    }
+
+    /** Returns the number of moves currently pushed on top of the root position. */
+    public int depth() {
+        return top;
+    }
+
+    public int maxDepth() {
+        return boards.length - 1;
+    }
+
+}
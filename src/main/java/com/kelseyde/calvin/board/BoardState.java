@@ -4,36 +4,61 @@ package com.kelseyde.calvin.board;
 /**
  * Stores the metadata for a given chess position - that is, the castling rights, en passant rights, the fifty-move counter
  * (the number of half-moves since the last capture or pawn move), and the last captured piece.
- * The game state history is stored by the {@link Board} to easily 'unmake' moves during search + evaluation.
+ * The {@link Board} stores its state history in primitive arrays indexed by ply. The states returned by
+ * {@link Board#getState()} and {@link Board#getStates()} are views of a single entry in that history, built on demand:
+ * calling one of their setters writes the state back to the board at that ply. Their public fields are a snapshot, and
+ * writing to a field directly only reaches the board with the next call to a setter.
  */
 public class BoardState {
 
     public long key;
     public long pawnKey;
     public long[] nonPawnKeys;
+    public long materialKey;
     public int enPassantFile;
     public int rights;
     public int halfMoveClock;
     public Piece captured;
+    // The board and ply this state is a view of, or null if it is not attached to a board
+    private final Board board;
+    private final int ply;
 
     public BoardState() {
         this.key = 0L;
         this.pawnKey = 0L;
         this.nonPawnKeys = new long[2];
+        this.materialKey = 0L;
         this.captured = null;
         this.enPassantFile = -1;
         this.rights = Castling.startpos();
         this.halfMoveClock = 0;
+        this.board = null;
+        this.ply = 0;
     }
 
+    /**
+     * Creates a state without a material key, which is left at zero. {@link Board#setState(BoardState)} calculates the
+     * material key from the pieces on the board for such a state.
+     */
     public BoardState(long key, long pawnKey, long[] nonPawnKeys, Piece captured, int enPassantFile, int rights, int halfMoveClock) {
+        this(key, pawnKey, nonPawnKeys, 0L, captured, enPassantFile, rights, halfMoveClock);
+    }
+
+    public BoardState(long key, long pawnKey, long[] nonPawnKeys, long materialKey, Piece captured, int enPassantFile, int rights, int halfMoveClock) {
+        this(key, pawnKey, nonPawnKeys, materialKey, captured, enPassantFile, rights, halfMoveClock, null, 0);
+    }
+
+    BoardState(long key, long pawnKey, long[] nonPawnKeys, long materialKey, Piece captured, int enPassantFile, int rights, int halfMoveClock, Board board, int ply) {
         this.key = key;
         this.pawnKey = pawnKey;
         this.nonPawnKeys = nonPawnKeys;
+        this.materialKey = materialKey;
         this.captured = captured;
         this.enPassantFile = enPassantFile;
         this.rights = rights;
         this.halfMoveClock = halfMoveClock;
+        this.board = board;
+        this.ply = ply;
     }
 
     public long getKey() {
@@ -44,6 +69,10 @@ public class BoardState {
         return pawnKey;
     }
 
+    public long getMaterialKey() {
+        return materialKey;
+    }
+
     public Piece getCaptured() {
         return captured;
     }
@@ -62,31 +91,51 @@ public class BoardState {
 
     public void setKey(long key) {
         this.key = key;
+        writeBack();
     }
 
     public void setPawnKey(long pawnKey) {
         this.pawnKey = pawnKey;
+        writeBack();
     }
 
     public void setNonPawnKeys(long[] nonPawnKeys) {
         this.nonPawnKeys = nonPawnKeys;
+        writeBack();
+    }
+
+    public void setMaterialKey(long materialKey) {
+        this.materialKey = materialKey;
+        writeBack();
     }
 
     public void setEnPassantFile(int enPassantFile) {
         this.enPassantFile = enPassantFile;
+        writeBack();
     }
 
     public void setRights(int rights) {
         this.rights = rights;
+        writeBack();
     }
 
     public void setHalfMoveClock(int halfMoveClock) {
         this.halfMoveClock = halfMoveClock;
+        writeBack();
+    }
+
+    private void writeBack() {
+        if (board != null) {
+            board.writeState(ply, this);
+        }
     }
 
+    /**
+     * Returns a copy of this state, which is not attached to any board.
+     */
     public BoardState copy() {
         long[] nonPawnKeysCopy = new long[]{nonPawnKeys[0], nonPawnKeys[1]};
-        return new BoardState(key, pawnKey, nonPawnKeysCopy, captured, enPassantFile, rights, halfMoveClock);
+        return new BoardState(key, pawnKey, nonPawnKeysCopy, materialKey, captured, enPassantFile, rights, halfMoveClock);
     }
 
     @Override
@@ -96,6 +145,7 @@ public class BoardState {
         BoardState boardState = (BoardState) o;
         return key == boardState.key
                 && pawnKey == boardState.pawnKey
+                && materialKey == boardState.materialKey
                 && enPassantFile == boardState.enPassantFile
                 && rights == boardState.rights
                 && halfMoveClock == boardState.halfMoveClock
@@ -0,0 +1,84 @@
+package com.kelseyde.calvin.board;
+
+import com.kelseyde.calvin.movegen.Attacks;
+
+/**
+ * Cuckoo hash tables of the key deltas of every reversible move, that is every move of a non-pawn piece between two
+ * squares it can reach on an empty board. Used by {@link Draw#hasUpcomingRepetition} to recognise, from the key
+ * history alone, a single move that would bring back an earlier position.
+ * <p>
+ * Each move is stored once, in one of two slots given by two hash functions of its key. Both directions of a move
+ * share the same key delta (including the side to move), and so the same slot.
+ *
+ * @see <a href="https://web.archive.org/web/20201107002606/https://marcelk.net/2013-04-06/paper/upcoming-rep-v2.pdf">
+ *     Marcel van Kervinck, The Cuckoo algorithm</a>
+ */
+final class Cuckoo {
+
+    static final int SIZE = 8192;
+
+    static final long[] KEYS = new long[SIZE];
+    static final byte[] FROM = new byte[SIZE];
+    static final byte[] TO = new byte[SIZE];
+
+    static {
+        for (Piece piece : Piece.values()) {
+            if (piece == Piece.PAWN) {
+                continue;
+            }
+            for (int colour = 0; colour < 2; colour++) {
+                final boolean white = colour == Colour.WHITE;
+                for (int from = 0; from < Square.COUNT; from++) {
+                    for (int to = from + 1; to < Square.COUNT; to++) {
+                        if (Bits.contains(emptyBoardAttacks(piece, from), to)) {
+                            insert(Key.piece(from, to, piece, white) ^ Key.sideToMove(), from, to);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Cuckoo() {
+    }
+
+    static int h1(long key) {
+        return (int) key & (SIZE - 1);
+    }
+
+    static int h2(long key) {
+        return (int) (key >>> 16) & (SIZE - 1);
+    }
+
+    private static void insert(long key, int from, int to) {
+        int slot = h1(key);
+        while (true) {
+            // Swap the new entry into the slot, and re-insert whatever was evicted into its other slot
+            final long evictedKey = KEYS[slot];
+            final byte evictedFrom = FROM[slot];
+            final byte evictedTo = TO[slot];
+            KEYS[slot] = key;
+            FROM[slot] = (byte) from;
+            TO[slot] = (byte) to;
+            if (evictedKey == 0L) {
+                return;
+            }
+            key = evictedKey;
+            from = evictedFrom;
+            to = evictedTo;
+            slot = slot == h1(key) ? h2(key) : h1(key);
+        }
+    }
+
+    private static long emptyBoardAttacks(Piece piece, int square) {
+        return switch (piece) {
+            case KNIGHT -> Attacks.knightAttacks(square);
+            case BISHOP -> Attacks.bishopAttacks(square, 0L);
+            case ROOK -> Attacks.rookAttacks(square, 0L);
+            case QUEEN -> Attacks.bishopAttacks(square, 0L) | Attacks.rookAttacks(square, 0L);
+            case KING -> Attacks.kingAttacks(square);
+            default -> 0L;
+        };
+    }
+
+}
@@ -4,6 +4,44 @@ import com.kelseyde.calvin.movegen.MoveGenerator;
 
 /** A utility class for checking draw conditions. */
 public final class Draw {
+
+    // The insufficient material verdicts for each material key (see Board#materialKey) with only kings and light pieces,
+    // stored in a small open-addressed table. Any material key not in the table is sufficient.
+    private static final byte SUFFICIENT = 0;
+    private static final byte INSUFFICIENT = 1;
+    private static final byte SAME_COLOUR_BISHOPS = 2;
+    // Up to two knights or bishops per side, plus eight promoted pawns
+    private static final int MAX_LIGHT_PIECES = 10;
+    private static final int MATERIAL_TABLE_SIZE = 1 << 15;
+    private static final int MATERIAL_TABLE_MASK = MATERIAL_TABLE_SIZE - 1;
+    private static final long[] MATERIAL_KEYS = new long[MATERIAL_TABLE_SIZE];
+    private static final byte[] ENGINE_VERDICTS = new byte[MATERIAL_TABLE_SIZE];
+    private static final byte[] FIDE_VERDICTS = new byte[MATERIAL_TABLE_SIZE];
+
+    static {
+        final long kings = Key.material(Piece.KING, true) + Key.material(Piece.KING, false);
+        for (int whiteKnights = 0; whiteKnights <= MAX_LIGHT_PIECES; whiteKnights++) {
+            for (int whiteBishops = 0; whiteBishops <= MAX_LIGHT_PIECES; whiteBishops++) {
+                for (int blackKnights = 0; blackKnights <= MAX_LIGHT_PIECES; blackKnights++) {
+                    for (int blackBishops = 0; blackBishops <= MAX_LIGHT_PIECES; blackBishops++) {
+                        final long materialKey = kings
+                                + whiteKnights * Key.material(Piece.KNIGHT, true)
+                                + whiteBishops * Key.material(Piece.BISHOP, true)
+                                + blackKnights * Key.material(Piece.KNIGHT, false)
+                                + blackBishops * Key.material(Piece.BISHOP, false);
+                        int index = materialIndex(materialKey);
+                        while (MATERIAL_KEYS[index] != 0L) {
+                            index = (index + 1) & MATERIAL_TABLE_MASK;
+                        }
+                        MATERIAL_KEYS[index] = materialKey;
+                        ENGINE_VERDICTS[index] = engineVerdict(whiteKnights, whiteBishops, blackKnights, blackBishops);
+                        FIDE_VERDICTS[index] = fideVerdict(whiteKnights, whiteBishops, blackKnights, blackBishops);
+                    }
+                }
+            }
+        }
+    }
+
     private Draw() {
         super();
     }
@@ -31,14 +69,14 @@ public final class Draw {
      */
     public static boolean isThreefoldRepetition(Board board) {
         int repetitionCount = 0;
-        long zobrist = board.getState().getKey();
-        BoardState[] states = board.getStates();
+        long zobrist = board.key();
+        long[] keys = board.keys();
         // No need to check the positions after the last half move clock reset as they are not reproducible
         // Warning, ply may be less than half move clock if initialized with a FEN different from the start one
-        int lastReproductiblePly = Math.max(board.getPly() - board.getState().getHalfMoveClock(), 0);
+        int lastReproductiblePly = Math.max(board.getPly() - board.halfMoveClock(), 0);
         for (int i = board.getPly() - 2; i >= lastReproductiblePly; i=i-2) {
             // decrement i by 2 as we can skip the positions where the player to move is not the current one
-            if (states[i].getKey() == zobrist) {
+            if (keys[i] == zobrist) {
                 repetitionCount += 1;
             }
             if (repetitionCount >= 2) {
@@ -57,14 +95,89 @@ public final class Draw {
      * @return true if the current position was already encountered in the board's history
      */
     public static boolean isDoubleRepetition(Board board) {
-        long zobrist = board.getState().getKey();
-        BoardState[] states = board.getStates();
+        long zobrist = board.key();
+        long[] keys = board.keys();
         // No need to check the positions after the last half move clock reset as they are not reproducible
         // Warning, ply may be less than half move clock if initialized with a FEN different from the start one
-        int lastReproductiblePly = Math.max(board.getPly() - board.getState().getHalfMoveClock(), 0);
+        int lastReproductiblePly = Math.max(board.getPly() - board.halfMoveClock(), 0);
         for (int i = board.getPly() - 2; i >= lastReproductiblePly; i=i-2) {
             // decrement i by 2 as we can skip the positions where the player to move is not the current one
-            if (states[i].getKey() == zobrist) {
+            if (keys[i] == zobrist) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Checks if the side to move can force a repetition with a single reversible move, that is if one of its moves leads
+     * back to a position in the history since the last irreversible move.
+     * <br>Equivalent to {@link #hasUpcomingRepetition(Board, int)} with a search ply of 0, so a repetition only counts
+     * if the repeated position has already occurred twice.
+     * @return true if the side to move can repeat a position with one move
+     */
+    public static boolean hasUpcomingRepetition(Board board) {
+        return hasUpcomingRepetition(board, 0);
+    }
+
+    /** Checks if the side to move can force a repetition with a single reversible move, using the
+     * <a href="https://web.archive.org/web/20201107002606/https://marcelk.net/2013-04-06/paper/upcoming-rep-v2.pdf">cuckoo algorithm</a>.
+     * <br>No moves are generated: the key history is walked back two plies at a time, and wherever the opponent's moves
+     * since then cancel out, the difference to the current key is looked up in a precomputed table of reversible move
+     * keys, so the cost is at most one cheap probe per two plies of {@link Board#halfMoveClock()}.
+     * <br>Like {@link #isDoubleRepetition}, this is intended to let a search cut drawn lines early.
+     * @param searchPly the number of plies since the root of the search. Repetitions of positions within the search
+     *                  tree count immediately, while repetitions of positions before the root must be threefold.
+     * @return true if the side to move can repeat a position with one move
+     */
+    public static boolean hasUpcomingRepetition(Board board, int searchPly) {
+        final int ply = board.getPly();
+        final int end = Math.min(board.halfMoveClock(), ply);
+        if (end < 3) {
+            return false;
+        }
+        final long[] keys = board.keys();
+        final long key = keys[ply];
+        final long occupied = board.getOccupied();
+        // The combined key delta of the opponent's moves, which must cancel out for their pieces to be back in place
+        long opponentDelta = key ^ keys[ply - 1] ^ Key.sideToMove();
+        for (int i = 3; i <= end; i += 2) {
+            opponentDelta ^= keys[ply - i + 1] ^ keys[ply - i] ^ Key.sideToMove();
+            if (opponentDelta != 0) {
+                continue;
+            }
+            final long moveKey = key ^ keys[ply - i];
+            int slot = Cuckoo.h1(moveKey);
+            if (Cuckoo.KEYS[slot] != moveKey) {
+                slot = Cuckoo.h2(moveKey);
+                if (Cuckoo.KEYS[slot] != moveKey) {
+                    continue;
+                }
+            }
+            final int from = Cuckoo.FROM[slot];
+            final int to = Cuckoo.TO[slot];
+            if ((Ray.between(from, to) & occupied) != 0) {
+                // The move is blocked
+                continue;
+            }
+            if (searchPly > i) {
+                return true;
+            }
+            // Both directions of a move share a table slot, so check that the piece belongs to the side to move
+            final int square = board.colouredPieceAt(from) != Piece.NONE ? from : to;
+            if (Piece.isWhite(board.colouredPieceAt(square)) != board.isWhite()) {
+                continue;
+            }
+            // Before the root, the position to be repeated must already have occurred before
+            if (hasOccurredBefore(keys, ply - i, ply - end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasOccurredBefore(long[] keys, int index, int firstReversiblePly) {
+        for (int i = index - 2; i >= firstReversiblePly; i -= 2) {
+            if (keys[i] == keys[index]) {
                 return true;
             }
         }
@@ -78,86 +191,92 @@ public final class Draw {
      * @see <a href="https://rustic-chess.org/board_functionality/detecting_cant_force_mate.html">How to detect can't force_mate</a>
      */
     public static boolean isInsufficientMaterial(Board board) {
-        if (board.getPawns() != 0 || board.getRooks() != 0 || board.getQueens() != 0) {
-            // There's at least a rook, a queen or a pawn, it's not an insufficient material position
-            return false;
+        return isInsufficientMaterial(board, ENGINE_VERDICTS);
+    }
+
+    /** Checks if the current position is a draw due to the <a href="https://en.wikipedia.org/wiki/Insufficient_material">insufficient material FIDE rule</a>.
+     * @return true if the current position is a draw due to the insufficient material FIDE rule
+     * @see <a href="https://rustic-chess.org/board_functionality/detecting_fide_draws.html">How to detect draw according to the FIDE rules</a>
+     */
+    public static boolean isInsufficientMaterialFIDERule(Board board) {
+        return isInsufficientMaterial(board, FIDE_VERDICTS);
+    }
+
+    private static boolean isInsufficientMaterial(Board board, byte[] verdicts) {
+        final long materialKey = board.materialKey();
+        int index = materialIndex(materialKey);
+        while (MATERIAL_KEYS[index] != 0L) {
+            if (MATERIAL_KEYS[index] == materialKey) {
+                return switch (verdicts[index]) {
+                    case INSUFFICIENT -> true;
+                    case SAME_COLOUR_BISHOPS -> {
+                        // This is a draw if and only if all bishops are on same color cells
+                        final long bishops = board.getBishops();
+                        final long whiteSquaresWithBishops = bishops & Square.WHITE;
+                        yield whiteSquaresWithBishops == 0 || whiteSquaresWithBishops == bishops;
+                    }
+                    default -> false;
+                };
+            }
+            index = (index + 1) & MATERIAL_TABLE_MASK;
         }
-        // There's only light pieces and kings
-        final int whiteBishops = Bits.count(board.getBishops(true));
-        final int blackBishops = Bits.count(board.getBishops(false));
-        final int whiteKnights = Bits.count(board.getKnights(true));
-        final int blackKnights = Bits.count(board.getKnights(false));
+        // Not a kings and light pieces only position, so there's enough material to mate
+        return false;
+    }
+
+    private static byte engineVerdict(int whiteKnights, int whiteBishops, int blackKnights, int blackBishops) {
         final int whiteLightPieces = whiteBishops + whiteKnights;
         final int blackLightPieces = blackBishops + blackKnights;
         if (whiteLightPieces <= 1 && blackLightPieces <= 1) {
             // None have two light pieces, it's an insufficient material position (typically, knight vs knight is considered as an insufficient material position)
-            return true;
+            return INSUFFICIENT;
         }
         // There's at least one player with two or more light pieces
         // First check if we are in a bishops vs lonely king situation
-        if (whiteKnights + blackKnights == 0 && (whiteBishops==0 || blackBishops==0)) {
+        if (whiteKnights + blackKnights == 0 && (whiteBishops == 0 || blackBishops == 0)) {
             // None have knights one have all bishops the other has a king
-            final long bishops = board.getBishops();
-            final long white = bishops & Square.WHITE;
-            // This is a draw if and only if all bishops are on same color cells
-            return bishops==white || white==0;
+            return SAME_COLOUR_BISHOPS;
         }
         // There's at least one knight on the board and a player has two light pieces,
         // If there's more than two light pieces, it's not an insufficient material position.
         if (whiteLightPieces + blackLightPieces > 2) {
-            // There's more than two light pieces and at least one knight
-            return false;
+            return SUFFICIENT;
         }
         // One player has two light pieces, the other has none
         // Two knights vs lonely king is considered as an insufficient material position, knight+bishop vs lonely king is not
-        return (whiteLightPieces>0 && whiteBishops==0) || (blackLightPieces>0 && blackBishops==0);
+        return (whiteLightPieces > 0 && whiteBishops == 0) || (blackLightPieces > 0 && blackBishops == 0)
+                ? INSUFFICIENT : SUFFICIENT;
     }
 
-    /** Checks if the current position is a draw due to the <a href="https://en.wikipedia.org/wiki/Insufficient_material">insufficient material FIDE rule</a>.
-     * @return true if the current position is a draw due to the insufficient material FIDE rule
-     * @see <a href="https://rustic-chess.org/board_functionality/detecting_fide_draws.html">How to detect draw according to the FIDE rules</a>
-     */
-    public static boolean isInsufficientMaterialFIDERule(Board board) {
-        if (board.getPawns() != 0 || board.getRooks() != 0 || board.getQueens() != 0) {
-            // There's at least a rook, a queen or a pawn, it's not an insufficient material position
-            return false;
-        }
-        // There's only light pieces and kings
-        final int whiteBishops = Bits.count(board.getBishops(true));
-        final int blackBishops = Bits.count(board.getBishops(false));
-        final int whiteKnights = Bits.count(board.getKnights(true));
-        final int blackKnights = Bits.count(board.getKnights(false));
-        final int lightPieces = whiteBishops + blackBishops + whiteKnights + blackKnights;
-        if (lightPieces <2) {
+    private static byte fideVerdict(int whiteKnights, int whiteBishops, int blackKnights, int blackBishops) {
+        if (whiteKnights + whiteBishops + blackKnights + blackBishops < 2) {
             // There's 0 or 1 light piece remaining, its a draw
-            return true;
+            return INSUFFICIENT;
         }
-        if (whiteKnights + blackKnights >0) {
+        if (whiteKnights + blackKnights > 0) {
             // If there's at least one knight and another piece (because lightPieces >=2), draw can't be claimed
-            return false;
+            return SUFFICIENT;
         }
-        // There's only bishops and kings
-        if (board.hasBishopPair(true) || board.hasBishopPair(false)) {
-            // At least one player has a bishop pair, draw can't be claimed
-            return false;
-        }
-        // There's only bishops and kings and no bishop pair, if bishops are all on squares of the same color, it's a draw.
-        final long bishops = board.getBishops();
-        final long whiteSquaresWithBishops = bishops & Square.WHITE;
-        return whiteSquaresWithBishops==0 || whiteSquaresWithBishops==bishops;
+        // There's only bishops and kings. If bishops are all on squares of the same color, neither side has a bishop
+        // pair and it's a draw.
+        return SAME_COLOUR_BISHOPS;
+    }
+
+    private static int materialIndex(long materialKey) {
+        return (int) (materialKey >>> 49) & MATERIAL_TABLE_MASK;
     }
 
     /** Checks if the current position is a draw due to the <a href="https://en.wikipedia.org/wiki/Fifty-move_rule">fifty-move rule</a>.
      * @return true if the current position is a draw due to the fifty-move rule
      */
     public static boolean isFiftyMoveRule(Board board) {
-        return board.getState().getHalfMoveClock() >= 100;
+        return board.halfMoveClock() >= 100;
     }
 
     /** Checks if the board is a draw due to a <a href="https://en.wikipedia.org/wiki/Stalemate">stalemate</a>.
      * @return true if the board is a draw due to a stalemate
      */
     public static boolean isStalemate(Board board, MoveGenerator moveGenerator) {
-        return !moveGenerator.isCheck(board, board.isWhite()) && moveGenerator.generateMoves(board).isEmpty();
+        return !moveGenerator.isCheck(board, board.isWhite()) && !moveGenerator.hasLegalMove(board);
     }
 }
@@ -1,6 +1,5 @@
 package com.kelseyde.calvin.board;
 
-import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -16,9 +15,14 @@ public class Key {
     private static final int CASTLING_RIGHTS_COUNT = 16;
     private static final int EN_PASSANT_FILES_COUNT = 9;
 
-    private static final long[][][] PIECE_SQUARE_HASH = new long[Square.COUNT][2][Piece.COUNT];
+    // Piece-square keys, flattened and indexed by (colour * 6 + piece) * 64 + square
+    private static final long[] PIECE_SQUARE_HASH = new long[2 * Piece.COUNT * Square.COUNT];
     private static final long[] CASTLING_RIGHTS = new long[CASTLING_RIGHTS_COUNT];
+    // Castling keys indexed by the four 'no rook' bits of the packed castling rights, see castlingIndex
+    private static final long[] CASTLING_KEYS = new long[CASTLING_RIGHTS_COUNT];
     private static final long[] EN_PASSANT_FILE = new long[EN_PASSANT_FILES_COUNT];
+    // Material keys, indexed by colour * 6 + piece. The material key of a position is the sum of the keys of its pieces
+    private static final long[] MATERIAL = new long[2 * Piece.COUNT];
     private static final long SIDE_TO_MOVE;
     private static final int WHITE = 0;
     private static final int BLACK = 1;
@@ -29,9 +33,9 @@ public class Key {
 
         // Generate random Zobrist keys for each piece on each square
         for (int square = 0; square < Square.COUNT; square++) {
-            for (int pieceIndex : Arrays.stream(Piece.values()).map(Piece::index).toList()) {
-                PIECE_SQUARE_HASH[square][WHITE][pieceIndex] = random.nextLong();
-                PIECE_SQUARE_HASH[square][BLACK][pieceIndex] = random.nextLong();
+            for (int pieceIndex = 0; pieceIndex < Piece.COUNT; pieceIndex++) {
+                PIECE_SQUARE_HASH[index(square, WHITE, pieceIndex)] = random.nextLong();
+                PIECE_SQUARE_HASH[index(square, BLACK, pieceIndex)] = random.nextLong();
             }
         }
 
@@ -45,31 +49,31 @@ public class Key {
 
         // Generate random key for side to move
         SIDE_TO_MOVE = random.nextLong();
-    }
 
-    public static long generateKey(Board board) {
-        long key = 0L;
+        // Generate random material keys for each piece type and colour
+        for (int i = 0; i < MATERIAL.length; i++) {
+            MATERIAL[i] = random.nextLong();
+        }
 
-        // Define arrays for each piece type and color
-        long[][] pieces = {
-                { board.getPawns(true), board.getPawns(false) },
-                { board.getKnights(true), board.getKnights(false) },
-                { board.getBishops(true), board.getBishops(false) },
-                { board.getRooks(true), board.getRooks(false) },
-                { board.getQueens(true), board.getQueens(false) },
-                { board.getKing(true), board.getKing(false) }
-        };
-
-        // Loop through each square and piece type
-        for (int square = 0; square < Square.COUNT; square++) {
-            for (int pieceType = 0; pieceType < Piece.COUNT; pieceType++) {
-                key = updateKeyForPiece(key, pieces[pieceType][WHITE], pieces[pieceType][BLACK], square, pieceType);
-            }
+        // Map each combination of missing rooks to the key for the corresponding castling flags
+        for (int i = 0; i < CASTLING_KEYS.length; i++) {
+            int flags = 0;
+            if ((i & 0x08) == 0) flags |= 0x04; // white kingside
+            if ((i & 0x04) == 0) flags |= 0x08; // white queenside
+            if ((i & 0x02) == 0) flags |= 0x01; // black kingside
+            if ((i & 0x01) == 0) flags |= 0x02; // black queenside
+            CASTLING_KEYS[i] = CASTLING_RIGHTS[flags];
         }
+    }
+
+    public static long generateKey(Board board) {
+        long key = generatePieceKey(board, Piece.PAWN, true) ^ generatePieceKey(board, Piece.PAWN, false);
+        final long[] nonPawnKeys = generateNonPawnKeys(board);
+        key ^= nonPawnKeys[WHITE] ^ nonPawnKeys[BLACK];
 
         // Update key with en passant, castling rights, and side to move
-        key ^= EN_PASSANT_FILE[board.getState().getEnPassantFile() + 1];
-        key ^= castling(board.getState().getRights());
+        key ^= EN_PASSANT_FILE[board.enPassantFile() + 1];
+        key ^= castling(board.rights());
         if (board.isWhite()) {
             key ^= SIDE_TO_MOVE;
         }
@@ -78,70 +82,58 @@ public class Key {
     }
 
     public static long generatePawnKey(Board board) {
-        long key = 0L;
-
-        // Get the bitboards for white and black pawns
-        long whitePawns = board.getPawns(true);
-        long blackPawns = board.getPawns(false);
-
-        // Loop through each square
-        if (whitePawns != 0L || blackPawns != 0L) {  // Early exit optimization if no pawns
-            for (int square = 0; square < Square.COUNT; square++) {
-                key = updateKeyForPiece(key, whitePawns, blackPawns, square, Piece.PAWN.index());
-            }
-        }
-
-        return key;
+        return generatePieceKey(board, Piece.PAWN, true) ^ generatePieceKey(board, Piece.PAWN, false);
     }
 
     public static long[] generateNonPawnKeys(Board board) {
         long[] keys = new long[2];
-
-        // Array of piece types and their corresponding bitboards for both sides
-        long[][] nonPawnPieces = {
-                { board.getKnights(true), board.getKnights(false) },
-                { board.getBishops(true), board.getBishops(false) },
-                { board.getRooks(true), board.getRooks(false) },
-                { board.getQueens(true), board.getQueens(false) },
-                { board.getKing(true), board.getKing(false) }
-        };
-
-        // Array of corresponding piece indices
-        int[] pieceIndices = {
-                Piece.KNIGHT.index(), Piece.BISHOP.index(),
-                Piece.ROOK.index(), Piece.QUEEN.index(), Piece.KING.index()
-        };
-
-        // Loop through each square and update the keys based on the pieces on the board
-        for (int square = 0; square < 64; square++) {
-            for (int i = 0; i < nonPawnPieces.length; i++) {
-                if (((nonPawnPieces[i][WHITE] >>> square) & 1) == 1) {
-                    keys[WHITE] ^= PIECE_SQUARE_HASH[square][WHITE][pieceIndices[i]];
-                } else if (((nonPawnPieces[i][BLACK] >>> square) & 1) == 1) {
-                    keys[BLACK] ^= PIECE_SQUARE_HASH[square][BLACK][pieceIndices[i]];
-                }
+        for (Piece piece : Piece.values()) {
+            if (piece != Piece.PAWN) {
+                keys[WHITE] ^= generatePieceKey(board, piece, true);
+                keys[BLACK] ^= generatePieceKey(board, piece, false);
             }
         }
-
         return keys;
     }
 
-    private static long updateKeyForPiece(long key, long whiteBitboard, long blackBitboard, int square, int pieceIndex) {
-        if (((whiteBitboard >>> square) & 1) == 1) {
-            key ^= PIECE_SQUARE_HASH[square][WHITE][pieceIndex];
-        } else if (((blackBitboard >>> square) & 1) == 1) {
-            key ^= PIECE_SQUARE_HASH[square][BLACK][pieceIndex];
+    /**
+     * Generates the material key of the position, which depends only on the number of pieces of each type and colour.
+     */
+    public static long generateMaterialKey(Board board) {
+        long key = 0L;
+        for (Piece piece : Piece.values()) {
+            key += Bits.count(board.getPieces(piece, true)) * material(piece, true);
+            key += Bits.count(board.getPieces(piece, false)) * material(piece, false);
+        }
+        return key;
+    }
+
+    private static long generatePieceKey(Board board, Piece piece, boolean white) {
+        long key = 0L;
+        long pieces = board.getPieces(piece, white);
+        while (pieces != 0) {
+            final int square = Bits.next(pieces);
+            key ^= piece(square, piece, white);
+            pieces = Bits.pop(pieces);
         }
         return key;
     }
 
     public static long piece(int from, int to, Piece pieceType, boolean white) {
-        return PIECE_SQUARE_HASH[from][Colour.index(white)][pieceType.index()]
-                ^ PIECE_SQUARE_HASH[to][Colour.index(white)][pieceType.index()];
+        final int offset = (Colour.index(white) * Piece.COUNT + pieceType.index()) << 6;
+        return PIECE_SQUARE_HASH[offset | from] ^ PIECE_SQUARE_HASH[offset | to];
     }
 
     public static long piece(int square, Piece pieceType, boolean white) {
-        return PIECE_SQUARE_HASH[square][Colour.index(white)][pieceType.index()];
+        return PIECE_SQUARE_HASH[index(square, Colour.index(white), pieceType.index())];
+    }
+
+    /**
+     * Returns the material key of a single piece. Unlike the other keys, material keys are added and subtracted rather
+     * than XOR'ed, so that the key counts pieces of the same type instead of cancelling them out.
+     */
+    public static long material(Piece pieceType, boolean white) {
+        return MATERIAL[Colour.index(white) * Piece.COUNT + pieceType.index()];
     }
 
     public static long rights(int oldCastlingRights, int newCastlingRights) {
@@ -161,26 +153,20 @@ public class Key {
     }
 
     private static long castling(int rights) {
-        final int whiteShort = 0x04;
-        final int whiteLong = 0x08;
-        final int blackShort = 0x01;
-        final int blackLong = 0x02;
-
-        int flags = 0;
-        if (Castling.kingsideAllowed(rights, true)) {
-            flags |= whiteShort;
-        }
-        if (Castling.queensideAllowed(rights, true)) {
-            flags |= whiteLong;
-        }
-        if (Castling.kingsideAllowed(rights, false)) {
-            flags |= blackShort;
-        }
-        if (Castling.queensideAllowed(rights, false)) {
-            flags |= blackLong;
-        }
-        return CASTLING_RIGHTS[flags];
+        return CASTLING_KEYS[castlingIndex(rights)];
+    }
+
+    /**
+     * Each of the four rook squares in the packed castling rights is stored in 7 bits, where 64 (bit 6 set) means there
+     * is no rook and so no right to castle on that side. Gathering those four bits gives a 4-bit index that identifies
+     * the castling flags without decoding each square.
+     */
+    private static int castlingIndex(int rights) {
+        return ((rights >>> 24) & 0x08) | ((rights >>> 18) & 0x04) | ((rights >>> 12) & 0x02) | ((rights >>> 6) & 0x01);
+    }
 
+    private static int index(int square, int colour, int pieceIndex) {
+        return (colour * Piece.COUNT + pieceIndex) << 6 | square;
     }
 
-}
\ No newline at end of file
+}
@@ -37,7 +37,7 @@ public record Move(short value) {
      * @param to The end square
      */
     public Move(int from, int to) {
-        this((short) (from | to << 6));
+        this(pack(from, to));
     }
 
     /**
@@ -47,7 +47,28 @@ public record Move(short value) {
      * @param flag The flag (see constants ending with _FLAG)
      */
     public Move(int from, int to, int flag) {
-        this((short) (from | (to << 6) | (flag << 12)));
+        this(pack(from, to, flag));
+    }
+
+    /**
+     * Packs a standard move into its 16-bit encoding, without allocating a {@link Move}.
+     * @param from The start square
+     * @param to The end square
+     * @return the encoded move
+     */
+    public static short pack(int from, int to) {
+        return (short) (from | to << 6);
+    }
+
+    /**
+     * Packs a move into its 16-bit encoding, without allocating a {@link Move}.
+     * @param from The start square
+     * @param to The end square
+     * @param flag The flag (see constants ending with _FLAG)
+     * @return the encoded move
+     */
+    public static short pack(int from, int to, int flag) {
+        return (short) (from | (to << 6) | (flag << 12));
     }
 
     /** Gets the start square of this move
@@ -18,6 +18,22 @@ public enum Piece {
     public static final int WHITE_PIECES = 6;
     public static final int BLACK_PIECES = 7;
 
+    /** The coloured piece code of an empty square. */
+    public static final byte NONE = 0;
+
+    /** Bit set in the coloured piece code of a black piece. */
+    private static final int BLACK_BIT = 8;
+
+    /** Maps each coloured piece code to its piece type, with null for an empty square. */
+    private static final Piece[] BY_CODE = new Piece[16];
+
+    static {
+        for (Piece piece : values()) {
+            BY_CODE[coloured(piece, true)] = piece;
+            BY_CODE[coloured(piece, false)] = piece;
+        }
+    }
+
     final int index;
 
     final String code;
@@ -39,6 +55,27 @@ public enum Piece {
         return this == BISHOP || this == ROOK || this == QUEEN;
     }
 
+    /**
+     * Encodes a piece and its colour into a single byte, as stored in the {@link Board} mailbox. The low three bits hold
+     * the piece index plus one, and bit 3 is set for black pieces, so that an empty square is {@link #NONE}.
+     */
+    public static byte coloured(Piece piece, boolean white) {
+        if (piece == null) {
+            return NONE;
+        }
+        return (byte) ((piece.index + 1) | (white ? 0 : BLACK_BIT));
+    }
+
+    /** Returns the piece type of a coloured piece code, or null for an empty square. */
+    public static Piece type(byte coloured) {
+        return BY_CODE[coloured];
+    }
+
+    /** Returns whether a (non-empty) coloured piece code is a white piece. */
+    public static boolean isWhite(byte coloured) {
+        return (coloured & BLACK_BIT) == 0;
+    }
+
     public static short promoFlag(Piece piece) {
         if (piece == null) {
             return NO_FLAG;
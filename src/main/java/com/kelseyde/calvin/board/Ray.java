@@ -1,43 +1,79 @@
 package com.kelseyde.calvin.board;
 
+/**
+ * Precomputed ray lookups between pairs of squares. Both tables are indexed by {@code from * 64 + to} and built once at
+ * class initialisation, so that pin and check calculations are a single array read.
+ */
 public class Ray {
 
+    private static final long[] BETWEEN = new long[64 * 64];
+    private static final long[] LINE = new long[64 * 64];
+
+    private static final int[][] DIRECTIONS = {
+            {0, 1}, {0, -1}, {1, 0}, {-1, 0}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}
+    };
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int[] direction : DIRECTIONS) {
+                initRays(from, direction[0], direction[1]);
+            }
+        }
+    }
+
     /**
-     * Calculates the ray (bitboard) between two squares on the chessboard.
+     * Returns the squares strictly between two squares, if they share a rank, file or diagonal. Otherwise, or if the
+     * squares are equal or invalid, returns an empty bitboard.
      */
     public static long between(int from, int to) {
-        if (!Square.isValid(from) || !Square.isValid(to) || (from == to)) {
+        if (((from | to) & ~63) != 0) {
             return 0L;
         }
-        int offset = direction(from, to);
-        if (offset == 0) return 0L;
-        long ray = 0L;
-        int sq = from + offset;
-        while (Square.isValid(sq) && sq != to) {
-            ray |= Bits.of(sq);
-            sq += offset;
+        return BETWEEN[from << 6 | to];
+    }
+
+    /**
+     * Returns the full line (edge to edge, including both squares) through two squares, if they share a rank, file or
+     * diagonal. Otherwise, or if the squares are equal or invalid, returns an empty bitboard.
+     */
+    public static long line(int from, int to) {
+        if (((from | to) & ~63) != 0) {
+            return 0L;
         }
-        return ray;
+        return LINE[from << 6 | to];
     }
 
     /**
-     * Determines the direction offset between two squares on the chessboard.
+     * Walks from the given square in one direction until the edge of the board, filling in the between and line masks
+     * for every square reached along the way.
      */
-    private static int direction(int from, int to) {
-        int startRank = Rank.of(from);
-        int endRank = Rank.of(to);
-        int startFile = File.of(from);
-        int endFile = File.of(to);
-        if (startRank == endRank) {
-            return from > to ? -1 : 1;
-        } else if (startFile == endFile) {
-            return from > to ? -8 : 8;
-        } else if (Math.abs(startRank - endRank) == Math.abs(startFile - endFile)) {
-            return from > to ? (from - to) % 9 == 0 ? -9 : -7 : (to - from) % 9 == 0 ? 9 : 7;
-        } else if (startRank + startFile == endRank + endFile) {
-            return from > to ? -9 : 9;
+    private static void initRays(int from, int fileOffset, int rankOffset) {
+        final long line = lineThrough(from, fileOffset, rankOffset);
+        long ray = 0L;
+        int file = File.of(from) + fileOffset;
+        int rank = Rank.of(from) + rankOffset;
+        while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+            final int to = Square.of(rank, file);
+            BETWEEN[from << 6 | to] = ray;
+            LINE[from << 6 | to] = line;
+            ray |= Bits.of(to);
+            file += fileOffset;
+            rank += rankOffset;
+        }
+    }
+
+    private static long lineThrough(int square, int fileOffset, int rankOffset) {
+        long line = Bits.of(square);
+        for (int sign = -1; sign <= 1; sign += 2) {
+            int file = File.of(square) + sign * fileOffset;
+            int rank = Rank.of(square) + sign * rankOffset;
+            while (file >= 0 && file < 8 && rank >= 0 && rank < 8) {
+                line |= Bits.of(Square.of(rank, file));
+                file += sign * fileOffset;
+                rank += sign * rankOffset;
+            }
         }
-        return 0;
+        return line;
     }
 
 }
@@ -0,0 +1,104 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Square;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The attack tables used by {@link MagicAttacks}. These are generated at build time into a binary resource on the
+ * classpath by {@link #main(String[])}, and loaded at class initialisation with a single bulk read, which is much
+ * quicker than enumerating every blocker configuration of every square. This matters for short-lived processes, where
+ * startup dominates.
+ * <p>
+ * The resource starts with a fingerprint of the magics and shifts the tables were built with. If the resource is
+ * missing or stale (for example when running from an IDE without the build step), or if loading is disabled with
+ * {@code -Dcalvin.attacks.precomputed=false}, the tables are computed instead.
+ */
+public final class AttackTables {
+
+    static final String RESOURCE = "attacks.bin";
+
+    // Every rook and bishop attack table packed into one array, laid out as described in Attacks.initSliderAttacks.
+    // Each square's bishop table starts at its offset.
+    public static final int[] BISHOP_OFFSETS = new int[Square.COUNT];
+    public static final long[] SLIDER_ATTACKS = load();
+
+    private AttackTables() {
+    }
+
+    /**
+     * Writes the tables to the resource file at the given path. Run during the build, after compilation.
+     */
+    public static void main(String[] args) throws IOException {
+        final long[] table = Attacks.initSliderAttacks(BISHOP_OFFSETS);
+        final Path path = Paths.get(args[0]);
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Files.write(path, encode(table));
+    }
+
+    private static long[] load() {
+        final long[] table = Boolean.parseBoolean(System.getProperty("calvin.attacks.precomputed", "true"))
+                ? read()
+                : null;
+        if (table == null) {
+            return Attacks.initSliderAttacks(BISHOP_OFFSETS);
+        }
+        // The offsets are cheap to recompute, and must match those the resource was written with
+        Attacks.initBishopOffsets(BISHOP_OFFSETS);
+        return table;
+    }
+
+    /**
+     * Reads the table from the resource, or returns null if it is missing or was built with different magics.
+     */
+    private static long[] read() {
+        try (InputStream in = AttackTables.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                return null;
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.remaining() < Long.BYTES + Integer.BYTES || buffer.getLong() != fingerprint()) {
+                return null;
+            }
+            final long[] table = new long[buffer.getInt()];
+            if (buffer.remaining() != (long) table.length * Long.BYTES) {
+                return null;
+            }
+            buffer.asLongBuffer().get(table);
+            return table;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read attack tables " + RESOURCE, e);
+        }
+    }
+
+    private static byte[] encode(long[] table) {
+        final ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES + table.length * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(fingerprint());
+        buffer.putInt(table.length);
+        buffer.asLongBuffer().put(table);
+        return buffer.array();
+    }
+
+    /**
+     * A hash of everything that determines the contents of the tables.
+     */
+    private static long fingerprint() {
+        long hash = Attacks.ROOK_LINE_SHIFT;
+        for (int square = 0; square < Square.COUNT; square++) {
+            hash = hash * 31 + Attacks.ROOK_FILE_MAGICS[square];
+            hash = hash * 31 + Attacks.ROOK_RANK_MAGICS[square];
+            hash = hash * 31 + Attacks.BISHOP_MAGICS[square];
+            hash = hash * 31 + Attacks.BISHOP_SHIFTS[square];
+        }
+        return hash;
+    }
+
+}
@@ -5,8 +5,6 @@ import com.kelseyde.calvin.board.File;
 import com.kelseyde.calvin.board.Rank;
 import com.kelseyde.calvin.board.Square;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 
 public class Attacks {
@@ -60,23 +58,45 @@ public class Attacks {
             0x2838000000000000L, 0x5070000000000000L, 0xa0e0000000000000L, 0x40c0000000000000L
     };
 
-    public static final long[] ROOK_MAGICS = new long[] {
-            0x0080001020400080L, 0x0040001000200040L, 0x0080081000200080L, 0x0080040800100080L,
-            0x0080020400080080L, 0x0080010200040080L, 0x0080008001000200L, 0x0080002040800100L,
-            0x0000800020400080L, 0x0000400020005000L, 0x0000801000200080L, 0x0000800800100080L,
-            0x0000800400080080L, 0x0000800200040080L, 0x0000800100020080L, 0x0000800040800100L,
-            0x0000208000400080L, 0x0000404000201000L, 0x0000808010002000L, 0x0000808008001000L,
-            0x0000808004000800L, 0x0000808002000400L, 0x0000010100020004L, 0x0000020000408104L,
-            0x0000208080004000L, 0x0000200040005000L, 0x0000100080200080L, 0x0000080080100080L,
-            0x0000040080080080L, 0x0000020080040080L, 0x0000010080800200L, 0x0000800080004100L,
-            0x0000204000800080L, 0x0000200040401000L, 0x0000100080802000L, 0x0000080080801000L,
-            0x0000040080800800L, 0x0000020080800400L, 0x0000020001010004L, 0x0000800040800100L,
-            0x0000204000808000L, 0x0000200040008080L, 0x0000100020008080L, 0x0000080010008080L,
-            0x0000040008008080L, 0x0000020004008080L, 0x0000010002008080L, 0x0000004081020004L,
-            0x0000204000800080L, 0x0000200040008080L, 0x0000100020008080L, 0x0000080010008080L,
-            0x0000040008008080L, 0x0000020004008080L, 0x0000800100020080L, 0x0000800041000080L,
-            0x00FFFCDDFCED714AL, 0x007FFCDDFCED714AL, 0x003FFFCDFFD88096L, 0x0000040810002101L,
-            0x0001000204080011L, 0x0001000204000801L, 0x0001000082000401L, 0x0001FFFAABFAD1A2L
+    // Rook attacks are looked up separately along the file and the rank through the square, each with at most six
+    // relevant occupancy bits and so a fixed shift. Both tables together take 64 KB, against around 750 KB for a single
+    // table over the whole rook mask. Found with MagicFinder.
+    public static final long[] ROOK_FILE_MAGICS = new long[] {
+            0x6010084082200400L, 0x2406204488401020L, 0x85980204102120A0L, 0xC101120444900800L,
+            0x0288014427020082L, 0x0A01020040872401L, 0x0008402082001300L, 0x0251004080120C20L,
+            0x1020222804109004L, 0x010025C004025000L, 0x3200012004424942L, 0x00002228010C8081L,
+            0x8840011C00418820L, 0x208C4C0100220940L, 0x0418A82132048504L, 0x2880811081430009L,
+            0x105009A081880D11L, 0x0060520804400204L, 0x1530300943022002L, 0x18050A0590010800L,
+            0x484080A4480A0100L, 0x58010004020C8054L, 0x0000600018210200L, 0x042811008101E008L,
+            0x0004800020164048L, 0x40884004A0100400L, 0x0001200004082200L, 0x0040918010280C00L,
+            0x0002040020810860L, 0x0400C08540710580L, 0x00C20100244020F0L, 0x0011124000200810L,
+            0x0241108200A06801L, 0x4424425200040900L, 0x2820010C00900820L, 0x000200881A100100L,
+            0x008A10840034C80AL, 0x00504C8104016080L, 0x04003200A0170040L, 0x0020811808002010L,
+            0x0090284280424405L, 0xE222400C88004200L, 0x4010042008611321L, 0x1C01100094B00288L,
+            0x00030104492B0480L, 0x420089004A000024L, 0x0001041208944020L, 0x00112921008A0414L,
+            0x000804C220840008L, 0x00400CA008220002L, 0x3A11012460024000L, 0x3012010810A43051L,
+            0x0086046084090002L, 0x0200860124110202L, 0x080420804308D021L, 0x0002490420511014L,
+            0x000411082080C040L, 0x202040240E100800L, 0x0002242090010800L, 0x8018020400813010L,
+            0x000154080085020BL, 0x0001002400C88201L, 0x8600104082002102L, 0x0000210008408010L
+    };
+
+    public static final long[] ROOK_RANK_MAGICS = new long[] {
+            0xA200091008240001L, 0x4280D00500100100L, 0x0200222088080040L, 0x0200004092000040L,
+            0x0204008020004022L, 0xC1081585000A0010L, 0x4160000100003042L, 0x02000D0440004308L,
+            0x20208100C2880000L, 0x0406010001009000L, 0x800441D000002011L, 0x2108200601000011L,
+            0x4942000010102000L, 0x60028030000100C1L, 0x49020A8000100000L, 0x000A040024008000L,
+            0x4080020204810000L, 0x2010220100220201L, 0x0028020000000020L, 0x00000A0408640000L,
+            0x24000202008C0002L, 0x002009080004440DL, 0x2138030200000D44L, 0x1800520068800800L,
+            0x0000022080800020L, 0x0000400172200802L, 0x0020000200002400L, 0x8100402040904580L,
+            0x0200822240C20011L, 0x00004A0200081001L, 0x0402000438020013L, 0x4080482200406100L,
+            0x2888800806000004L, 0x000008A002008000L, 0x8804101002080021L, 0x00204010020000AAL,
+            0x160000000C108280L, 0x5A40000004100200L, 0x00002C208A004410L, 0x4800001814510480L,
+            0x8800080200020088L, 0x2022404000441200L, 0x01000009120200E0L, 0x8004001010C10016L,
+            0x11202C2000A08000L, 0x010000000241240CL, 0x8400848200040000L, 0x0020100840020000L,
+            0x00080C1020100A00L, 0x0210008800000120L, 0x0080010000000600L, 0x003020001040C110L,
+            0x0104000004004100L, 0x0400000020000260L, 0x01020080609041C0L, 0x0840C00000000200L,
+            0x0100000401100582L, 0x1002010062C03201L, 0x0000400002900212L, 0x0110004001888802L,
+            0x4408000820420042L, 0x0180008000103246L, 0x0000000020000004L, 0x8190400802424042L
     };
 
     public static final long[] BISHOP_MAGICS = new long[] {
@@ -98,6 +118,40 @@ public class Attacks {
             0x0000000010020200L, 0x0000000404080200L, 0x0000040404040400L, 0x0002020202020200L
     };
 
+    public static final int ROOK_LINE_SHIFT = 58;
+
+    // The layout of each square's rook table in the shared slider attack table, see initSliderAttacks
+    static final int ROOK_TABLE_BITS = Square.COUNT - ROOK_LINE_SHIFT + 1;
+    static final int ROOK_RANK_OFFSET = 1 << (Square.COUNT - ROOK_LINE_SHIFT);
+
+    /**
+     * @deprecated the single-table rook magics, which {@link #rookAttacks(int, long)} no longer uses. Kept for the
+     * deprecated {@link LegacyTables}.
+     */
+    @Deprecated
+    public static final long[] ROOK_MAGICS = new long[] {
+            0x0080001020400080L, 0x0040001000200040L, 0x0080081000200080L, 0x0080040800100080L,
+            0x0080020400080080L, 0x0080010200040080L, 0x0080008001000200L, 0x0080002040800100L,
+            0x0000800020400080L, 0x0000400020005000L, 0x0000801000200080L, 0x0000800800100080L,
+            0x0000800400080080L, 0x0000800200040080L, 0x0000800100020080L, 0x0000800040800100L,
+            0x0000208000400080L, 0x0000404000201000L, 0x0000808010002000L, 0x0000808008001000L,
+            0x0000808004000800L, 0x0000808002000400L, 0x0000010100020004L, 0x0000020000408104L,
+            0x0000208080004000L, 0x0000200040005000L, 0x0000100080200080L, 0x0000080080100080L,
+            0x0000040080080080L, 0x0000020080040080L, 0x0000010080800200L, 0x0000800080004100L,
+            0x0000204000800080L, 0x0000200040401000L, 0x0000100080802000L, 0x0000080080801000L,
+            0x0000040080800800L, 0x0000020080800400L, 0x0000020001010004L, 0x0000800040800100L,
+            0x0000204000808000L, 0x0000200040008080L, 0x0000100020008080L, 0x0000080010008080L,
+            0x0000040008008080L, 0x0000020004008080L, 0x0000010002008080L, 0x0000004081020004L,
+            0x0000204000800080L, 0x0000200040008080L, 0x0000100020008080L, 0x0000080010008080L,
+            0x0000040008008080L, 0x0000020004008080L, 0x0000800100020080L, 0x0000800041000080L,
+            0x00FFFCDDFCED714AL, 0x007FFCDDFCED714AL, 0x003FFFCDFFD88096L, 0x0000040810002101L,
+            0x0001000204080011L, 0x0001000204000801L, 0x0001000082000401L, 0x0001FFFAABFAD1A2L
+    };
+
+    /**
+     * @deprecated the shifts for {@link #ROOK_MAGICS}.
+     */
+    @Deprecated
     public static final int[] ROOK_SHIFTS = new int[]{
             52, 53, 53, 53, 53, 53, 53, 52,
             53, 54, 54, 54, 54, 54, 54, 53,
@@ -108,6 +162,7 @@ public class Attacks {
             53, 54, 54, 54, 54, 54, 54, 53,
             53, 54, 54, 53, 53, 53, 53, 53
     };
+
     public static final int[] BISHOP_SHIFTS = new int[] {
             58, 59, 59, 59, 59, 59, 59, 58,
             59, 59, 59, 59, 59, 59, 59, 59,
@@ -121,12 +176,32 @@ public class Attacks {
 
     public static final long[] ROOK_MASKS = initMagicMask(true);
     public static final long[] BISHOP_MASKS = initMagicMask(false);
+    public static final long[] ROOK_FILE_MASKS = initLineMask(true);
+    public static final long[] ROOK_RANK_MASKS = initLineMask(false);
+
+    // The sliding attack implementation, selected once at startup with -Dcalvin.attacks (see SliderAttacks.of). Declared
+    // after the masks, magics and shifts above, which the table-based implementations read during initialisation.
+    public static final SliderAttacks SLIDERS = SliderAttacks.of(System.getProperty("calvin.attacks", "magic"));
+
+    /**
+     * The jagged magic tables that {@link #rookAttacks(int, long)} and {@link #bishopAttacks(int, long)} used to read,
+     * one array per square. They are no longer used here, and are only built the first time this class is touched.
+     *
+     * @deprecated use {@link #rookAttacks(int, long)} and {@link #bishopAttacks(int, long)} instead.
+     */
+    @Deprecated
+    public static final class LegacyTables {
 
-    public static final long[][] ROOK_ATTACKS = initMagicAttacks(true, ROOK_MAGICS, ROOK_SHIFTS);
-    public static final long[][] BISHOP_ATTACKS = initMagicAttacks(false, BISHOP_MAGICS, BISHOP_SHIFTS);
+        public static final long[][] ROOK_ATTACKS = initMagicAttacks(true, ROOK_MAGICS, ROOK_SHIFTS);
+        public static final long[][] BISHOP_ATTACKS = initMagicAttacks(false, BISHOP_MAGICS, BISHOP_SHIFTS);
 
-    public static final MagicLookup[] ROOK_MAGIC_LOOKUP = initMagicLookups(ROOK_ATTACKS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS);
-    public static final MagicLookup[] BISHOP_MAGIC_LOOKUP = initMagicLookups(BISHOP_ATTACKS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS);
+        public static final MagicLookup[] ROOK_MAGIC_LOOKUP = initMagicLookups(ROOK_ATTACKS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS);
+        public static final MagicLookup[] BISHOP_MAGIC_LOOKUP = initMagicLookups(BISHOP_ATTACKS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS);
+
+        private LegacyTables() {
+        }
+
+    }
 
     public static long pawnAttacks(long pawns, boolean white) {
         return white ?
@@ -143,11 +218,11 @@ public class Attacks {
     }
 
     public static long rookAttacks(int square, long blockers) {
-        return sliderAttacks(square, blockers, ROOK_MAGIC_LOOKUP);
+        return SLIDERS.rookAttacks(square, blockers);
     }
 
     public static long bishopAttacks(int square, long blockers) {
-        return sliderAttacks(square, blockers, BISHOP_MAGIC_LOOKUP);
+        return SLIDERS.bishopAttacks(square, blockers);
     }
 
     /**
@@ -231,6 +306,10 @@ public class Attacks {
                 Bits.southEast(pawns) & opponents & ~File.A & Rank.FIRST;
     }
 
+    /**
+     * @deprecated use {@link #rookAttacks(int, long)} and {@link #bishopAttacks(int, long)} instead.
+     */
+    @Deprecated
     public static long sliderAttacks(int sq, long occ, MagicLookup[] lookups) {
         MagicLookup lookup = lookups[sq];
         occ      &= lookup.mask;
@@ -247,6 +326,55 @@ public class Attacks {
         return magicMasks;
     }
 
+    public static long[] initLineMask(boolean isFile) {
+        long[] lineMasks = new long[Square.COUNT];
+        for (int square = 0; square < Square.COUNT; square++) {
+            lineMasks[square] = initMovementMask(square, true) & line(square, isFile);
+        }
+        return lineMasks;
+    }
+
+    /**
+     * Fill in the offset of each square's bishop table in the shared slider attack table, where the bishop tables follow
+     * the rook tables, and return the size of the whole table.
+     */
+    public static int initBishopOffsets(int[] offsets) {
+        int size = Square.COUNT << ROOK_TABLE_BITS;
+        for (int square = 0; square < Square.COUNT; square++) {
+            offsets[square] = size;
+            size += 1 << (Square.COUNT - BISHOP_SHIFTS[square]);
+        }
+        return size;
+    }
+
+    /**
+     * Build the shared slider attack table, filling in the offset of each square's bishop table along the way. Each
+     * square's rook table starts at the square shifted left by {@link #ROOK_TABLE_BITS}, and holds the attacks along
+     * the file followed by the attacks along the rank, 64 entries each, so that both lookups for a rook land close
+     * together. The bishop tables follow.
+     */
+    public static long[] initSliderAttacks(int[] bishopOffsets) {
+        long[] attacks = new long[initBishopOffsets(bishopOffsets)];
+        for (int square = 0; square < Square.COUNT; square++) {
+            for (boolean isFile : new boolean[] {true, false}) {
+                long mask = isFile ? ROOK_FILE_MASKS[square] : ROOK_RANK_MASKS[square];
+                long magic = isFile ? ROOK_FILE_MAGICS[square] : ROOK_RANK_MAGICS[square];
+                int offset = square << ROOK_TABLE_BITS | (isFile ? 0 : ROOK_RANK_OFFSET);
+                for (long blockerMask : initBlockerMasks(mask)) {
+                    int index = (int) ((blockerMask * magic) >>> ROOK_LINE_SHIFT);
+                    attacks[offset + index] = initLineAttackMask(square, blockerMask, isFile);
+                }
+            }
+            long[] bishopTable = initMagicTable(square, false, BISHOP_MAGICS[square], BISHOP_SHIFTS[square]);
+            System.arraycopy(bishopTable, 0, attacks, bishopOffsets[square], bishopTable.length);
+        }
+        return attacks;
+    }
+
+    /**
+     * @deprecated builds the jagged tables of {@link LegacyTables}; use {@link #initSliderAttacks(int[])} instead.
+     */
+    @Deprecated
     public static long[][] initMagicAttacks(boolean isOrthogonal, long[] magics, int[] shifts) {
         long[][] magicAttacks = new long[Square.COUNT][];
 
@@ -257,6 +385,42 @@ public class Attacks {
         return magicAttacks;
     }
 
+    /**
+     * Build the shared slider attack table for bit extraction, with a dense table for each square indexed by the
+     * extracted occupancy bits, filling in the offset of each square's table along the way.
+     */
+    public static long[] initPextAttacks(int[] rookOffsets, int[] bishopOffsets) {
+        int size = 0;
+        for (int square = 0; square < Square.COUNT; square++) {
+            rookOffsets[square] = size;
+            size += 1 << Bits.count(ROOK_MASKS[square]);
+        }
+        for (int square = 0; square < Square.COUNT; square++) {
+            bishopOffsets[square] = size;
+            size += 1 << Bits.count(BISHOP_MASKS[square]);
+        }
+
+        long[] attacks = new long[size];
+        for (int square = 0; square < Square.COUNT; square++) {
+            long[] rookTable = initPextTable(square, true);
+            System.arraycopy(rookTable, 0, attacks, rookOffsets[square], rookTable.length);
+            long[] bishopTable = initPextTable(square, false);
+            System.arraycopy(bishopTable, 0, attacks, bishopOffsets[square], bishopTable.length);
+        }
+        return attacks;
+    }
+
+    public static long[] initPextTable(int square, boolean isOrthogonal) {
+        long movementMask = initMovementMask(square, isOrthogonal);
+        long[] table = new long[1 << Bits.count(movementMask)];
+
+        for (long blockerMask : initBlockerMasks(movementMask)) {
+            int index = (int) Pext.softwareCompress(blockerMask, movementMask);
+            table[index] = initAttackMask(square, blockerMask, isOrthogonal);
+        }
+        return table;
+    }
+
     public static long[] initMagicTable(int square, boolean isOrthogonal, long magic, int shift) {
         int numBits = Square.COUNT - shift;
         int tableSize = 1 << numBits;
@@ -273,22 +437,16 @@ public class Attacks {
         return table;
     }
 
+    /**
+     * Enumerate every subset of the movement mask, using the carry-rippler trick. Subsets come out in the order of their
+     * bits extracted from the mask, i.e. the n-th subset is the one whose extracted bits equal n.
+     */
     public static long[] initBlockerMasks(long movementMask) {
-        List<Integer> moveSquares = new ArrayList<>();
-        for (int i = 0; i < Square.COUNT; i++) {
-            if ((movementMask & Bits.of(i)) != 0) {
-                moveSquares.add(i);
-            }
-        }
-
-        int patternsCount = 1 << moveSquares.size();
-        long[] blockerBitboards = new long[patternsCount];
-
-        for (int patternIndex = 0; patternIndex < patternsCount; patternIndex++) {
-            for (int bitIndex = 0; bitIndex < moveSquares.size(); bitIndex++) {
-                int bit = (patternIndex >>> bitIndex) & 1;
-                blockerBitboards[patternIndex] |= (long) bit << moveSquares.get(bitIndex);
-            }
+        long[] blockerBitboards = new long[1 << Bits.count(movementMask)];
+        long subset = 0L;
+        for (int i = 0; i < blockerBitboards.length; i++) {
+            blockerBitboards[i] = subset;
+            subset = (subset - movementMask) & movementMask;
         }
         return blockerBitboards;
     }
@@ -337,8 +495,27 @@ public class Attacks {
 
     }
 
+    /**
+     * Rook attacks along only the file (or rank) through the square.
+     */
+    public static long initLineAttackMask(int from, long blockers, boolean isFile) {
+        return initAttackMask(from, blockers, true) & line(from, isFile);
+    }
+
+    private static long line(int square, boolean isFile) {
+        return isFile ? File.A << File.of(square) : Rank.FIRST << (Rank.of(square) * 8);
+    }
+
+    /**
+     * @deprecated see {@link LegacyTables}.
+     */
+    @Deprecated
     public record MagicLookup(long[] attacks, long mask, long magic, int shift) {}
 
+    /**
+     * @deprecated see {@link LegacyTables}.
+     */
+    @Deprecated
     public static MagicLookup[] initMagicLookups(long[][] allAttacks, long[] masks, long[] magics, int[] shifts) {
         MagicLookup[] magicLookups = new MagicLookup[Square.COUNT];
         for (int i = 0; i < Square.COUNT; i++) {
@@ -0,0 +1,76 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Bits;
+import com.kelseyde.calvin.board.Square;
+
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Slider attacks using the classical approach: the empty-board ray in each direction, cut off beyond the nearest
+ * blocker by removing that blocker's own ray in the same direction. Uses eight small ray tables.
+ *
+ * @see <a href="https://www.chessprogramming.org/Classical_Approach">Chess Programming Wiki</a>
+ */
+public final class ClassicalAttacks implements SliderAttacks {
+
+    private static final long[] NORTH = rays(Bits::north);
+    private static final long[] EAST = rays(Bits::east);
+    private static final long[] NORTH_EAST = rays(Bits::northEast);
+    private static final long[] NORTH_WEST = rays(Bits::northWest);
+    private static final long[] SOUTH = rays(Bits::south);
+    private static final long[] WEST = rays(Bits::west);
+    private static final long[] SOUTH_WEST = rays(Bits::southWest);
+    private static final long[] SOUTH_EAST = rays(Bits::southEast);
+
+    @Override
+    public long rookAttacks(int square, long occupied) {
+        return positive(NORTH, square, occupied)
+                | positive(EAST, square, occupied)
+                | negative(SOUTH, square, occupied)
+                | negative(WEST, square, occupied);
+    }
+
+    @Override
+    public long bishopAttacks(int square, long occupied) {
+        return positive(NORTH_EAST, square, occupied)
+                | positive(NORTH_WEST, square, occupied)
+                | negative(SOUTH_WEST, square, occupied)
+                | negative(SOUTH_EAST, square, occupied);
+    }
+
+    /**
+     * Attacks along a ray of increasing square indices, where the nearest blocker is the lowest set bit.
+     */
+    private static long positive(long[] rays, int square, long occupied) {
+        long attacks = rays[square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            attacks ^= rays[Long.numberOfTrailingZeros(blockers)];
+        }
+        return attacks;
+    }
+
+    /**
+     * Attacks along a ray of decreasing square indices, where the nearest blocker is the highest set bit.
+     */
+    private static long negative(long[] rays, int square, long occupied) {
+        long attacks = rays[square];
+        long blockers = attacks & occupied;
+        if (blockers != 0) {
+            attacks ^= rays[63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return attacks;
+    }
+
+    private static long[] rays(LongUnaryOperator step) {
+        long[] rays = new long[Square.COUNT];
+        for (int square = 0; square < Square.COUNT; square++) {
+            long bb = Bits.of(square);
+            while ((bb = step.applyAsLong(bb)) != 0) {
+                rays[square] |= bb;
+            }
+        }
+        return rays;
+    }
+
+}
@@ -0,0 +1,21 @@
+package com.kelseyde.calvin.movegen;
+
+/**
+ * The state of a game in a given position, as classified by {@link MoveGenerator#status}.
+ */
+public enum GameStatus {
+    ONGOING,
+    CHECKMATE,
+    STALEMATE,
+    FIFTY_MOVE,
+    REPETITION,
+    INSUFFICIENT;
+
+    public boolean isDraw() {
+        return this != ONGOING && this != CHECKMATE;
+    }
+
+    public boolean isOver() {
+        return this != ONGOING;
+    }
+}
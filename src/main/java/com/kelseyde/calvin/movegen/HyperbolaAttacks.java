@@ -0,0 +1,75 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.File;
+import com.kelseyde.calvin.board.Rank;
+import com.kelseyde.calvin.board.Square;
+
+/**
+ * Slider attacks using hyperbola quintessence: along each line through the square, subtracting the slider from the
+ * occupancy finds the first blocker above it, and doing the same on the flipped board finds the first blocker below
+ * it. Needs only four line masks per square.
+ *
+ * @see <a href="https://www.chessprogramming.org/Hyperbola_Quintessence">Chess Programming Wiki</a>
+ */
+public final class HyperbolaAttacks implements SliderAttacks {
+
+    // Lines through each square, excluding the square itself
+    private static final long[] FILES = new long[Square.COUNT];
+    private static final long[] RANKS = new long[Square.COUNT];
+    private static final long[] DIAGONALS = new long[Square.COUNT];
+    private static final long[] ANTI_DIAGONALS = new long[Square.COUNT];
+
+    static {
+        for (int square = 0; square < Square.COUNT; square++) {
+            for (int other = 0; other < Square.COUNT; other++) {
+                if (other == square) {
+                    continue;
+                }
+                int fileDiff = File.of(other) - File.of(square);
+                int rankDiff = Rank.of(other) - Rank.of(square);
+                long bit = 1L << other;
+                if (fileDiff == 0) FILES[square] |= bit;
+                if (rankDiff == 0) RANKS[square] |= bit;
+                if (fileDiff == rankDiff) DIAGONALS[square] |= bit;
+                if (fileDiff == -rankDiff) ANTI_DIAGONALS[square] |= bit;
+            }
+        }
+    }
+
+    @Override
+    public long rookAttacks(int square, long occupied) {
+        return lineAttacks(square, occupied, FILES[square]) | rankAttacks(square, occupied);
+    }
+
+    @Override
+    public long bishopAttacks(int square, long occupied) {
+        return lineAttacks(square, occupied, DIAGONALS[square]) | lineAttacks(square, occupied, ANTI_DIAGONALS[square]);
+    }
+
+    /**
+     * Attacks along a file or diagonal. These lines have at most one square per rank, so flipping the board vertically
+     * (a byte swap) reverses the order of squares along the line.
+     */
+    private static long lineAttacks(int square, long occupied, long line) {
+        long slider = 1L << square;
+        long forward = occupied & line;
+        long reverse = Long.reverseBytes(forward);
+        forward -= slider;
+        reverse -= Long.reverseBytes(slider);
+        return (forward ^ Long.reverseBytes(reverse)) & line;
+    }
+
+    /**
+     * Attacks along a rank, where a byte swap would not reverse the squares, so the full bit reversal is used instead.
+     */
+    private static long rankAttacks(int square, long occupied) {
+        long line = RANKS[square];
+        long slider = 1L << square;
+        long forward = occupied & line;
+        long reverse = Long.reverse(forward);
+        forward -= slider;
+        reverse -= Long.reverse(slider);
+        return (forward ^ Long.reverse(reverse)) & line;
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.kelseyde.calvin.movegen;
+
+/**
+ * Slider attacks using 'fancy' magic bitboards: the relevant occupancy is multiplied by a per-square magic number, and
+ * the top bits of the product index that square's table of attacks. Rook attacks are the union of two lookups with
+ * fixed-shift magics, one along the file and one along the rank, which keeps the rook tables small. All the tables share
+ * one contiguous array.
+ *
+ * @see <a href="https://www.chessprogramming.org/Magic_Bitboards">Chess Programming Wiki</a>
+ */
+public final class MagicAttacks implements SliderAttacks {
+
+    // The table is read from AttackTables on every lookup rather than copied into a field here. AttackTables reads the
+    // magics from Attacks during its own initialisation, which may in turn create this class before the table exists.
+
+    @Override
+    public long rookAttacks(int square, long occupied) {
+        int offset = square << Attacks.ROOK_TABLE_BITS;
+        int file = (int) (((occupied & Attacks.ROOK_FILE_MASKS[square]) * Attacks.ROOK_FILE_MAGICS[square]) >>> Attacks.ROOK_LINE_SHIFT);
+        int rank = (int) (((occupied & Attacks.ROOK_RANK_MASKS[square]) * Attacks.ROOK_RANK_MAGICS[square]) >>> Attacks.ROOK_LINE_SHIFT);
+        return AttackTables.SLIDER_ATTACKS[offset | file] | AttackTables.SLIDER_ATTACKS[offset | Attacks.ROOK_RANK_OFFSET | rank];
+    }
+
+    @Override
+    public long bishopAttacks(int square, long occupied) {
+        return AttackTables.SLIDER_ATTACKS[AttackTables.BISHOP_OFFSETS[square]
+                + (int) (((occupied & Attacks.BISHOP_MASKS[square]) * Attacks.BISHOP_MAGICS[square]) >>> Attacks.BISHOP_SHIFTS[square])];
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.kelseyde.calvin.movegen;
+
+/**
+ * Receives legal moves from {@link MoveGenerator#generateMoves(com.kelseyde.calvin.board.Board, MoveGenerator.MoveFilter,
+ * MoveConsumer)} as they are found, each packed into a 16-bit short (see {@link com.kelseyde.calvin.board.Move#value()}).
+ * Returning false from {@link #accept(short)} stops the generation early, which is useful for callers that only need
+ * to know whether a move matching some predicate exists.
+ * <br>The board must not be modified from within the callback.
+ */
+@FunctionalInterface
+public interface MoveConsumer {
+
+    /**
+     * Accepts a legal move.
+     * @param move the move, packed into a short
+     * @return true to continue generating moves, false to stop
+     */
+    boolean accept(short move);
+
+}
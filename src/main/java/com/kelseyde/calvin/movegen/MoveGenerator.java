@@ -2,7 +2,6 @@ package com.kelseyde.calvin.movegen;
 
 import com.kelseyde.calvin.board.*;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -10,417 +9,132 @@ import java.util.List;
  * Using a hybrid of pseudo-legal and legal move generation: first we calculate the bitboards for checking pieces and
  * pinned pieces. If there is a check, we filter out all moves that do not resolve the check. Finally, we filter out all
  * moves that leave the king in (a new) check.
+ * <p>
+ * The generator holds no mutable state: the masks for each call live in a {@link Generation} context. A single instance
+ * can therefore be shared between threads, as long as each thread works on its own {@link Board} and its own contexts.
+ * The overloads without a context create one per call; hot loops should create one with {@link #newGeneration()} and
+ * pass it to every call instead, so that move generation allocates nothing.
  */
 public class MoveGenerator {
 
-    private int checkersCount;
-    private long checkersMask;
-    private long pinMask;
-    private final long[] pinRayMasks = new long[64];
-    private long captureMask;
-    private long pushMask;
-    private MoveFilter filter;
-    private boolean white;
-
-    private long pawns;
-    private long knights;
-    private long bishops;
-    private long rooks;
-    private long queens;
-    private long king;
-
-    private List<Move> legalMoves;
+    /**
+     * Creates a context for {@link #generateMoves(Board, MoveFilter, MoveConsumer, Generation)} and friends, which may
+     * be re-used for any number of calls on this generator, but only by one thread at a time.
+     */
+    public Generation newGeneration() {
+        return new Generation();
+    }
 
     public List<Move> generateMoves(Board board) {
         return generateMoves(board, MoveFilter.ALL);
     }
 
     public List<Move> generateMoves(Board board, MoveFilter filter) {
-
-        white = board.isWhite();
-
-        // Initialise piece fields
-        initPieces(board, white);
-
-        final int kingSquare = Bits.next(king);
-        this.filter = filter;
-
-        // Initialize capture and push masks
-        captureMask = Square.ALL;
-        pushMask = Square.ALL;
-
-        // Calculate pins and checks
-        calculatePins(board, white);
-        checkersMask = calculateCheckers(board, kingSquare);
-        checkersCount = Bits.count(checkersMask);
-
-        final int estimatedLegalMoves = estimateLegalMoves();
-        legalMoves = new ArrayList<>(estimatedLegalMoves);
-
-        if (checkersCount > 0 && filter == MoveFilter.QUIET) {
-            return legalMoves;
-        }
-
-        // Generate king moves first
-        generateKingMoves(board);
-
-        if (checkersCount == 2) {
-            // If we are in double-check, the only legal moves are king moves
-            return legalMoves;
-        }
-
-        if (checkersCount == 1) {
-            // If only one checker, we can evade check by capturing it
-            captureMask = checkersMask;
-
-            final int checkerSquare = Bits.next(checkersMask);
-            if (board.pieceAt(checkerSquare).isSlider()) {
-                // If the piece giving check is a slider, we can evade check by blocking it
-                pushMask = Ray.between(checkerSquare, kingSquare);
-            } else {
-                // If the piece is not a slider, we can only evade check by capturing it
-                // Therefore all non-capture 'push' moves are illegal.
-                pushMask = Square.NONE;
-            }
-        }
-
-        // Generate all the other legal moves using the capture and push masks
-        generatePawnMoves(board);
-        generateKnightMoves(board);
-        generateAllSlidingMoves(board);
-        generateCastlingMoves(board);
-
-        return legalMoves;
-
+        final MoveList moves = new MoveList();
+        generateMoves(board, filter, moves);
+        return moves.toList();
     }
 
-    /**
-     * Checks if the specified side is in check.
-     *
-     * @param board   The current board state.
-     * @param white Indicates whether the side in question is white.
-     * @return True if the specified side is in check, otherwise false.
-     */
-    public boolean isCheck(Board board, boolean white) {
-        final long king = board.getKing(white);
-        return isAttacked(board, white, king);
+    public void generateMoves(Board board, MoveList moves) {
+        generateMoves(board, MoveFilter.ALL, moves);
     }
 
-    public boolean isCheck(Board board) {
-        return isCheck(board, board.isWhite());
-    }
-
-    private void generatePawnMoves(Board board) {
-        if (pawns == 0) return;
-
-        final long opponents = board.getPieces(!white);
-        final long occupied = board.getOccupied();
-        final int opponentKing = Bits.next(board.getKing(!white));
-
-        // Precompute attack and filter masks
-        final long opponentAttackMask = Attacks.pawnAttacks(Bits.of(opponentKing), !white);
-        final long filterMask = getFilterMask(opponents, opponentAttackMask);
-
-        if (filterMask == Square.NONE) return;
-
-        // Single and double pawn pushes
-        if (filter != MoveFilter.CAPTURES_ONLY) {
-            generatePawnPushes(occupied, filterMask);
-        }
-
-        // Pawn captures, en passant, and promotions
-        if (filter != MoveFilter.QUIET) {
-            generatePawnCaptures(opponents, filterMask);
-            generatePromotions(opponents, occupied);
-            generateEnPassant(board);
-        }
+    public void generateMoves(Board board, MoveFilter filter, MoveList moves) {
+        generateMoves(board, filter, moves, new Generation());
     }
 
-    private void generatePawnPushes(long occupied, long filterMask) {
-        // Single and double pawn pushes combined
-        long singleMoves = Attacks.pawnSingleMoves(pawns, occupied, white) & pushMask & filterMask;
-        long doubleMoves = Attacks.pawnDoubleMoves(pawns, occupied, white) & pushMask & filterMask;
-
-        while (singleMoves != 0) {
-            final int to = Bits.next(singleMoves);
-            final int from = white ? to - 8 : to + 8;
-            if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
-                legalMoves.add(new Move(from, to));
-            }
-            singleMoves = Bits.pop(singleMoves);
-        }
-
-        while (doubleMoves != 0) {
-            final int to = Bits.next(doubleMoves);
-            final int from = white ? to - 16 : to + 16;
-            if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
-                legalMoves.add(new Move(from, to, Move.PAWN_DOUBLE_MOVE_FLAG));
-            }
-            doubleMoves = Bits.pop(doubleMoves);
-        }
+    /**
+     * Generates the legal moves in the given position, writing them as packed shorts into the caller-owned
+     * {@link MoveList}. The list is cleared first, so that it can be re-used across calls without allocating.
+     */
+    public void generateMoves(Board board, MoveFilter filter, MoveList moves, Generation generation) {
+        moves.clear();
+        generateMoves(board, filter, (MoveConsumer) moves, generation);
     }
 
-    private void generatePawnCaptures(long opponents, long filterMask) {
-        long leftCaptures = Attacks.pawnLeftCaptures(pawns, opponents, white) & captureMask & filterMask;
-        long rightCaptures = Attacks.pawnRightCaptures(pawns, opponents, white) & captureMask & filterMask;
-
-        while (leftCaptures != 0) {
-            final int to = Bits.next(leftCaptures);
-            final int from = white ? to - 7 : to + 9;
-            if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
-                legalMoves.add(new Move(from, to));
-            }
-            leftCaptures = Bits.pop(leftCaptures);
-        }
-
-        while (rightCaptures != 0) {
-            final int to = Bits.next(rightCaptures);
-            final int from = white ? to - 9 : to + 7;
-            if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
-                legalMoves.add(new Move(from, to));
-            }
-            rightCaptures = Bits.pop(rightCaptures);
-        }
+    public boolean generateMoves(Board board, MoveFilter filter, MoveConsumer consumer) {
+        return generateMoves(board, filter, consumer, new Generation());
     }
 
-    private void generatePromotions(long opponents, long occupied) {
-        final long pushPromotions = Attacks.pawnPushPromotions(pawns, occupied, white) & pushMask;
-        final long leftCapturePromotions = Attacks.pawnLeftCapturePromotions(pawns, opponents, white) & (captureMask | pushMask);
-        final long rightCapturePromotions = Attacks.pawnRightCapturePromotions(pawns, opponents, white) & (captureMask | pushMask);
-
-        generatePromotionMoves(pushPromotions, 8, 8);
-        generatePromotionMoves(leftCapturePromotions, 7, 9);
-        generatePromotionMoves(rightCapturePromotions, 9, 7);
+    /**
+     * Generates the legal moves in the given position, pushing each one to the {@link MoveConsumer} as soon as it is
+     * found. Generation stops as soon as the consumer returns false, so callers that only need the first move (or the
+     * first move matching some predicate) do not pay for the full list. The consumer must not re-use the same context
+     * for a nested call.
+     *
+     * @return true if all moves were generated, false if the consumer stopped generation early.
+     */
+    public boolean generateMoves(Board board, MoveFilter filter, MoveConsumer consumer, Generation generation) {
+        return generation.generate(board, filter, consumer);
     }
 
-    private void generatePromotionMoves(long promotionMask, int offsetWhite, int offsetBlack) {
-        while (promotionMask != 0) {
-            final int to = Bits.next(promotionMask);
-            final int from = white ? to - offsetWhite : to + offsetBlack;
-            if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
-                legalMoves.addAll(getPromotionMoves(from, to));
-            }
-            promotionMask = Bits.pop(promotionMask);
-        }
+    public int countMoves(Board board) {
+        return countMoves(board, MoveFilter.ALL);
     }
 
-    private void generateEnPassant(Board board) {
-        if (board.getState().getEnPassantFile() < 0) return;
-
-        final long enPassantFile = File.toBitboard(board.getState().getEnPassantFile());
-        final long leftEnPassants = Attacks.pawnLeftEnPassants(pawns, enPassantFile, white);
-        final long rightEnPassants = Attacks.pawnRightEnPassants(pawns, enPassantFile, white);
-
-        generateEnPassantMoves(board, leftEnPassants, 7, 9);
-        generateEnPassantMoves(board, rightEnPassants, 9, 7);
+    public int countMoves(Board board, MoveFilter filter) {
+        return countMoves(board, filter, new Generation());
     }
 
-    private void generateEnPassantMoves(Board board, long enPassantMask, int offsetWhite, int offsetBlack) {
-        while (enPassantMask != 0) {
-            final int to = Bits.next(enPassantMask);
-            final int from = white ? to - offsetWhite : to + offsetBlack;
-            final Move move = new Move(from, to, Move.EN_PASSANT_FLAG);
-            if (!leavesKingInCheck(board, move, white)) {
-                legalMoves.add(move);
-            }
-            enPassantMask = Bits.pop(enPassantMask);
-        }
+    /**
+     * Counts the legal moves in the given position, without generating them. Uses the same capture, push and pin masks
+     * as {@link #generateMoves(Board, MoveFilter, MoveConsumer)}, but counts the target squares of each piece type with
+     * popcounts rather than iterating them one by one. Useful for bulk-counting leaf nodes in perft, or for mobility.
+     */
+    public int countMoves(Board board, MoveFilter filter, Generation generation) {
+        return generation.count(board, filter);
     }
 
-    private long getFilterMask(long opponents, long opponentAttackMask) {
-        return checkersCount > 0 ? captureMask | pushMask : switch (filter) {
-            case ALL -> Square.ALL;
-            case CAPTURES_ONLY -> opponents;
-            case NOISY -> opponents | opponentAttackMask;
-            case QUIET -> ~opponents & ~opponentAttackMask;
-        };
+    public boolean hasLegalMove(Board board) {
+        return hasLegalMove(board, new Generation());
     }
 
-    private void generateKnightMoves(Board board) {
-        if (knights == 0) return;
-        final long opponents = board.getPieces(!white);
-        final int opponentKing = Bits.next(board.getKing(!white));
-
-        // Initialize filter mask based on move filter type
-        final long filterMask = checkersCount > 0 ? captureMask | pushMask : switch (filter) {
-            case ALL -> Square.ALL;
-            case CAPTURES_ONLY -> opponents;
-            case NOISY -> opponents | Attacks.knightAttacks(opponentKing);
-            case QUIET -> ~opponents & ~Attacks.knightAttacks(opponentKing);
-        };
-        if (filterMask == Square.NONE) {
-            return;
-        }
-
-        // Exclude pinned knights from generating moves
-        long unpinnedKnights = knights & ~pinMask;
-
-        // Generate legal knight moves
-        while (unpinnedKnights != 0) {
-            final int from = Bits.next(unpinnedKnights);
-            long possibleMoves = getKnightAttacks(board, from, white) & (pushMask | captureMask) & filterMask;
-            while (possibleMoves != 0) {
-                final int to = Bits.next(possibleMoves);
-                legalMoves.add(new Move(from, to));
-                possibleMoves = Bits.pop(possibleMoves);
-            }
-            unpinnedKnights = Bits.pop(unpinnedKnights);
-        }
+    /**
+     * Checks if the side to move has at least one legal move. King moves are tried first, and the other pieces are only
+     * checked (with the popcount-based move counting, so no moves are generated) until the first legal move is found.
+     */
+    public boolean hasLegalMove(Board board, Generation generation) {
+        return generation.hasLegalMove(board);
     }
 
-    private void generateKingMoves(Board board) {
-        final int from = Bits.next(king);
-        final long friendlies = board.getPieces(white);
-        final long opponents = board.getPieces(!white);
-
-        final long filterMask = checkersCount > 0 ? captureMask | pushMask : switch (filter) {
-            case ALL -> Square.ALL;
-            case CAPTURES_ONLY, NOISY -> opponents;
-            case QUIET -> ~opponents;
-        };
-        if (filterMask == Square.NONE) {
-            return;
-        }
-
-        long kingMoves = Attacks.kingAttacks(from) & ~friendlies & filterMask;
-
-        // Temporarily remove the king from the board
-        board.removeKing(white);
-
-        // Generate legal king moves
-        while (kingMoves != 0) {
-            final int to = Bits.next(kingMoves);
-            // Check if the end square is not attacked by the opponent
-            if (!isAttacked(board, white, Bits.of(to))) {
-                legalMoves.add(new Move(from, to));
-            }
-            kingMoves = Bits.pop(kingMoves);
-        }
-
-        // Restore the king to its original position on the board
-        board.addKing(from, white);
+    public GameStatus status(Board board) {
+        return status(board, new Generation());
     }
 
-    private void generateCastlingMoves(Board board) {
-        if ((filter != MoveFilter.ALL && filter != MoveFilter.QUIET)
-                || checkersMask != 0) {
-            return;
-        }
-        final int from = Bits.next(king);
-        final long occupied = board.getOccupied();
-
-        final boolean isKingsideAllowed = Castling.kingsideAllowed(board.getState().rights, white);
-        if (isKingsideAllowed) {
-            generateCastlingMove(board, white, true, from, occupied);
+    /**
+     * Classifies the position as checkmate, stalemate, a draw by the fifty-move rule, threefold repetition or
+     * insufficient material (according to the FIDE rule), or an ongoing game, in that order of precedence.
+     */
+    public GameStatus status(Board board, Generation generation) {
+        if (!generation.hasLegalMove(board)) {
+            return generation.checkersCount > 0 ? GameStatus.CHECKMATE : GameStatus.STALEMATE;
         }
-
-        final boolean isQueensideAllowed = Castling.queensideAllowed(board.getState().rights, white);
-        if (isQueensideAllowed) {
-            generateCastlingMove(board, white, false, from, occupied);
+        if (Draw.isFiftyMoveRule(board)) {
+            return GameStatus.FIFTY_MOVE;
         }
-
-    }
-
-    private void generateCastlingMove(Board board, boolean white, boolean kingside, int kingSquare, long occupied) {
-        switch (board.variant()) {
-            case STANDARD -> generateStandardCastlingMove(board, white, kingside, kingSquare, occupied);
-            case CHESS960 -> generateChess960CastlingMove(board, white, kingside, kingSquare, occupied);
+        if (Draw.isThreefoldRepetition(board)) {
+            return GameStatus.REPETITION;
         }
-    }
-
-    private void generateStandardCastlingMove(Board board, boolean white, boolean kingside, int kingSquare, long occupied) {
-        final long travelSquares = Castling.Standard.travelSquares(white, kingside);
-        final long blockedSquares = travelSquares & occupied;
-        final long safeSquares = Castling.Standard.safeSquares(white, kingside);
-        if (blockedSquares == 0 && !isAttacked(board, white, safeSquares)) {
-            int to = getCastleEndSquare(board, white, kingside);
-            legalMoves.add(new Move(kingSquare, to, Move.CASTLE_FLAG));
+        if (Draw.isInsufficientMaterialFIDERule(board)) {
+            return GameStatus.INSUFFICIENT;
         }
+        return GameStatus.ONGOING;
     }
 
-    private void generateChess960CastlingMove(Board board, boolean white, boolean kingside, int kingSquare, long occupied) {
-        final int rookSquare = Castling.getRook(board.getState().rights, kingside, white);
-        final long rookSquareBit = Bits.of(rookSquare); 
-        if ((pinMask & rookSquareBit) != 0) {
-            // can't castle if rook is pinned 
-        	return;
-        }
-        final int kingDst = Castling.kingTo(kingside, white);
-        final int rookDst = Castling.rookTo(kingside, white);
-
-        final long kingTravelSquares = (Ray.between(kingSquare, kingDst) | Bits.of(kingDst));
-        final long rookTravelSquares = (Ray.between(rookSquare, rookDst) | Bits.of(rookDst));
-        // Warning : King and rook initial positions should be ignored when verifying if cells are free
-        final long travelSquares = (kingTravelSquares | rookTravelSquares) & ~ (rookSquareBit | Bits.of(kingSquare));
-
-        final long blockedSquares = travelSquares & occupied;
-        final long safeSquares = Bits.of(kingSquare) | Ray.between(kingSquare, kingDst) | Bits.of(kingDst);
-        if (blockedSquares == 0 && !isAttacked(board, white, safeSquares)) {
-            int to = getCastleEndSquare(board, white, kingside);
-            legalMoves.add(new Move(kingSquare, to, Move.CASTLE_FLAG));
-        }
-    }
-
-    private void generateAllSlidingMoves(Board board) {
-        if (filter == MoveFilter.ALL) {
-            final long diagonalSliders = bishops | queens;
-            final long orthogonalSliders = rooks | queens;
-            generateSlidingMoves(board, diagonalSliders, false, true);
-            generateSlidingMoves(board, orthogonalSliders, true, false);
-        } else {
-            generateSlidingMoves(board, bishops, false, true);
-            generateSlidingMoves(board, rooks, true, false);
-            generateSlidingMoves(board, queens, true, true);
-        }
-    }
-
-    private void generateSlidingMoves(Board board, long sliders, boolean isOrthogonal, boolean isDiagonal) {
-        final long opponents = board.getPieces(!white);
-        final long occupied = board.getOccupied();
-        final long friendlies = board.getPieces(white);
-
-        // Apply move filters
-        final long filterMask = checkersCount > 0 ? captureMask | pushMask : switch (filter) {
-            case ALL -> Square.ALL;
-            case CAPTURES_ONLY -> opponents;
-            case NOISY -> getCaptureAndCheckMask(board, white, opponents, occupied, isDiagonal, isOrthogonal);
-            case QUIET -> ~getCaptureAndCheckMask(board, white, opponents, occupied, isDiagonal, isOrthogonal);
-        };
-        if (filterMask == Square.NONE) {
-            return;
-        }
-
-        while (sliders != 0) {
-            final int from = Bits.next(sliders);
-            long attackMask = getSlidingAttacks(from, friendlies, occupied, isDiagonal, isOrthogonal);
-
-            attackMask &= pushMask | captureMask;
-            attackMask &= filterMask;
-
-            // Handle pinned pieces
-            if (isPinned(from)) {
-                attackMask &= pinRayMasks[from];
-            }
-
-            sliders = Bits.pop(sliders);
-            while (attackMask != 0) {
-                final int to = Bits.next(attackMask);
-                legalMoves.add(new Move(from, to));
-                attackMask = Bits.pop(attackMask);
-            }
-        }
+    /**
+     * Checks if the specified side is in check.
+     *
+     * @param board   The current board state.
+     * @param white Indicates whether the side in question is white.
+     * @return True if the specified side is in check, otherwise false.
+     */
+    public boolean isCheck(Board board, boolean white) {
+        final long king = board.getKing(white);
+        return isAttacked(board, white, king);
     }
 
-    private long getCaptureAndCheckMask(Board board, boolean white, long opponents, long occupied, boolean isDiagonal, boolean isOrthogonal) {
-        final int opponentKing = Bits.next(board.getKing(!white));
-        long filterMask = opponents;
-        if (isDiagonal) {
-            filterMask |= Attacks.bishopAttacks(opponentKing, occupied);
-        }
-        if (isOrthogonal) {
-            filterMask |= Attacks.rookAttacks(opponentKing, occupied);
-        }
-        return filterMask;
+    public boolean isCheck(Board board) {
+        return isCheck(board, board.isWhite());
     }
 
     public long getPawnAttacks(Board board, int square, boolean white) {
@@ -480,41 +194,6 @@ public class MoveGenerator {
         return attackMask &~ friendlies;
     }
 
-    private long calculateCheckers(Board board, int square) {
-        final long occupied = board.getOccupied();
-        final long friendlies = board.getPieces(white);
-        long attackerMask = 0L;
-
-        final long opponentPawns = board.getPawns(!white);
-        if (opponentPawns != 0) {
-            final long pawnAttackMask = getPawnAttacks(board, square, white);
-            attackerMask |= pawnAttackMask & opponentPawns;
-        }
-
-        final long opponentKnights = board.getKnights(!white);
-        if (opponentKnights != 0) {
-            final long knightAttackMask = getKnightAttacks(board, square, white);
-            attackerMask |= knightAttackMask & opponentKnights;
-        }
-
-        final long opponentBishops = board.getBishops(!white);
-        final long opponentQueens = board.getQueens(!white);
-        final long diagonalSliders = opponentBishops | opponentQueens;
-        if (diagonalSliders != 0) {
-            attackerMask |= getSlidingAttacks(square, friendlies, occupied, true, false) & diagonalSliders;
-        }
-
-        final long opponentRooks = board.getRooks(!white);
-        final long orthogonalSliders = opponentRooks | opponentQueens;
-        if (orthogonalSliders != 0) {
-            attackerMask |= getSlidingAttacks(square, friendlies, occupied, false, true) & orthogonalSliders;
-        }
-
-        // King can never give check
-
-        return attackerMask;
-    }
-
     private boolean isAttacked(Board board, boolean white, long squareMask) {
 
         final long opponentPawns = board.getPawns(!white);
@@ -564,8 +243,12 @@ public class MoveGenerator {
         return false;
     }
 
-    public void calculatePins(Board board, boolean white) {
-        this.pinMask = 0L;
+    /**
+     * Calculates the pieces of the given side that are pinned to their own king.
+     * @return a bitboard of the pinned pieces
+     */
+    public long calculatePins(Board board, boolean white) {
+        long pinMask = 0L;
 
         final int kingSquare = Bits.next(board.getKing(white));
         final long friendlies = board.getPieces(white);
@@ -598,14 +281,13 @@ public class MoveGenerator {
             final long friendliesBetween = ray & friendlies;
             // If there is exactly one friendly piece between the king and the pinner, it's pinned
             if (Bits.count(friendliesBetween) == 1) {
-                int friendlySquare = Bits.next(friendliesBetween);
-                this.pinMask |= friendliesBetween;
-                this.pinRayMasks[friendlySquare] = ray | (Bits.of(possiblePinner));
+                pinMask |= friendliesBetween;
             }
 
             possiblePinners = Bits.pop(possiblePinners);
         }
 
+        return pinMask;
     }
 
     public long calculateThreats(Board board, boolean white) {
@@ -691,8 +373,8 @@ public class MoveGenerator {
             int kingsideCastleSquare;
             int queensideCastleSquare;
             if (ChessVariant.CHESS960==board.variant()) {
-            	kingsideCastleSquare = Castling.getRook(board.getState().rights, true, white);
-            	queensideCastleSquare = Castling.getRook(board.getState().rights, false, white);
+            	kingsideCastleSquare = Castling.getRook(board.rights(), true, white);
+            	queensideCastleSquare = Castling.getRook(board.rights(), false, white);
             } else {
 	            kingsideCastleSquare = white ? 6 : 62;
 	            queensideCastleSquare = white ? 2 : 58;
@@ -703,11 +385,11 @@ public class MoveGenerator {
                 return false;
 
             // Must have kingside rights
-            if (to == kingsideCastleSquare && !Castling.kingsideAllowed(board.getState().rights, white))
+            if (to == kingsideCastleSquare && !Castling.kingsideAllowed(board.rights(), white))
                 return false;
 
             // Must have queenside rights
-            if (to == queensideCastleSquare && !Castling.queensideAllowed(board.getState().rights, white))
+            if (to == queensideCastleSquare && !Castling.queensideAllowed(board.rights(), white))
                 return false;
 
             boolean kingside = to == kingsideCastleSquare;
@@ -723,7 +405,7 @@ public class MoveGenerator {
 	            travelSquares = (kingTravelSquares | rookTravelSquares) & ~ (Bits.of(to) | Bits.of(from));
 	            safeSquares = Bits.of(from) | Ray.between(from, kingDst) | Bits.of(kingDst);
            } else {
-            final int rookSquare = Castling.getRook(board.getState().rights, kingside, white);
+            final int rookSquare = Castling.getRook(board.rights(), kingside, white);
 	            travelSquares = Ray.between(from, rookSquare);
 	            safeSquares = Castling.Standard.safeSquares(white, kingside);
             }
@@ -739,7 +421,7 @@ public class MoveGenerator {
             if (move.isEnPassant()) {
 
                 // Can't en passant if there's no en passant square
-                if (board.getState().getEnPassantFile() < 0)
+                if (board.enPassantFile() < 0)
                     return false;
 
                 final int epSquare = white ? to - 8 : to + 8;
@@ -829,14 +511,6 @@ public class MoveGenerator {
         return legal;
     }
 
-    private List<Move> getPromotionMoves(int from, int to) {
-        return List.of(new Move(from, to, Move.PROMOTE_TO_QUEEN_FLAG),
-                        new Move(from, to, Move.PROMOTE_TO_ROOK_FLAG),
-                        new Move(from, to, Move.PROMOTE_TO_BISHOP_FLAG),
-                        new Move(from, to, Move.PROMOTE_TO_KNIGHT_FLAG));
-    }
-
-
     private boolean leavesKingInCheck(Board board, Move move, boolean white) {
         board.makeMove(move);
         final int kingSquare = white ? Bits.next(board.getKing(true)) : Bits.next(board.getKing(false));
@@ -845,50 +519,753 @@ public class MoveGenerator {
         return isAttacked;
     }
 
-    private boolean isPinned(int from) {
-        return (Bits.of(from) & pinMask) != 0;
-    }
+    /**
+     * The state of a move generation or count: the side to move, its pieces, and the check, pin and filter masks. Every
+     * field is re-initialised at the start of each call, so one context can be re-used for any number of positions,
+     * keeping the state out of {@link MoveGenerator} itself so that it can be shared freely between threads. A context
+     * is not thread-safe. Create one with {@link #newGeneration()}.
+     */
+    public final class Generation {
 
-    private boolean isMovingAlongPinRay(int from, int to) {
-        final long pinRay = pinRayMasks[from];
-        return (Bits.of(to) & pinRay) != 0;
-    }
+        private int checkersCount;
 
-    private int getCastleEndSquare(Board board, boolean white, boolean kingside) {
-        // In standard chess, the king 'to' square is the actual destination square
-        // In Chess960 UCI notation, castle moves are encoded as king-captures-rook
-        return switch (board.variant()) {
-            case STANDARD -> kingside ? (white ? 6 : 62) : (white ? 2 : 58);
-            case CHESS960 -> Castling.getRook(board.getState().getRights(), kingside, white);
-        };
-    }
+        private long checkersMask;
 
-    public long getPinMask() {
-        return pinMask;
-    }
+        private long pinMask;
+
+        private int pinKingSquare;
+
+        private long captureMask;
+
+        private long pushMask;
+
+        private MoveFilter filter;
+
+        private boolean white;
+
+        private long pawns;
+
+        private long knights;
+
+        private long bishops;
+
+        private long rooks;
+
+        private long queens;
+
+        private long king;
+
+        private MoveConsumer consumer;
+
+        private boolean stopped;
+
+        private Generation() {
+        }
+
+        boolean generate(Board board, MoveFilter filter, MoveConsumer consumer) {
+
+            this.consumer = consumer;
+            this.stopped = false;
+            final int kingSquare = initialise(board, filter);
+
+            if (checkersCount > 0 && filter == MoveFilter.QUIET) {
+                return true;
+            }
+
+            // Generate king moves first
+            generateKingMoves(board);
+
+            if (checkersCount == 2 || stopped) {
+                // If we are in double-check, the only legal moves are king moves
+                return !stopped;
+            }
+
+            if (checkersCount == 1) {
+                initCheckMasks(board, kingSquare);
+            }
+
+            // Generate all the other legal moves using the capture and push masks
+            generatePawnMoves(board);
+            if (!stopped) generateKnightMoves(board);
+            if (!stopped) generateAllSlidingMoves(board);
+            if (!stopped) generateCastlingMoves(board);
+
+            return !stopped;
+
+        }
+
+        int count(Board board, MoveFilter filter) {
+
+            final int kingSquare = initialise(board, filter);
+
+            if (checkersCount > 0 && filter == MoveFilter.QUIET) {
+                return 0;
+            }
+
+            int count = Bits.count(getLegalKingMoves(board));
+
+            if (checkersCount == 2) {
+                // If we are in double-check, the only legal moves are king moves
+                return count;
+            }
+
+            if (checkersCount == 1) {
+                initCheckMasks(board, kingSquare);
+            }
+
+            count += countPawnMoves(board);
+            count += countKnightMoves(board);
+            count += countAllSlidingMoves(board);
+            count += countCastlingMoves(board);
+            return count;
+
+        }
+
+        boolean hasLegalMove(Board board) {
+
+            final int kingSquare = initialise(board, MoveFilter.ALL);
+
+            if (getLegalKingMoves(board) != 0) {
+                return true;
+            }
+
+            if (checkersCount == 2) {
+                // If we are in double-check, the only legal moves are king moves
+                return false;
+            }
+
+            if (checkersCount == 1) {
+                initCheckMasks(board, kingSquare);
+            }
+
+            return countKnightMoves(board) > 0
+                    || countAllSlidingMoves(board) > 0
+                    || countPawnMoves(board) > 0
+                    || countCastlingMoves(board) > 0;
+
+        }
+
+        /**
+         * Initialises the piece fields, the capture and push masks, and calculates the pins and checks for the side to move.
+         * @return the square of the king of the side to move
+         */
+        private int initialise(Board board, MoveFilter filter) {
+
+            white = board.isWhite();
+
+            // Initialise piece fields
+            initPieces(board, white);
+
+            final int kingSquare = Bits.next(king);
+            this.filter = filter;
+
+            // Initialize capture and push masks
+            captureMask = Square.ALL;
+            pushMask = Square.ALL;
+
+            // Calculate pins and checks
+            pinMask = calculatePins(board, white);
+            pinKingSquare = kingSquare;
+            checkersMask = calculateCheckers(board, kingSquare);
+            checkersCount = Bits.count(checkersMask);
+
+            return kingSquare;
+
+        }
+
+        private void initCheckMasks(Board board, int kingSquare) {
+            // If only one checker, we can evade check by capturing it
+            captureMask = checkersMask;
+
+            final int checkerSquare = Bits.next(checkersMask);
+            if (board.pieceAt(checkerSquare).isSlider()) {
+                // If the piece giving check is a slider, we can evade check by blocking it
+                pushMask = Ray.between(checkerSquare, kingSquare);
+            } else {
+                // If the piece is not a slider, we can only evade check by capturing it
+                // Therefore all non-capture 'push' moves are illegal.
+                pushMask = Square.NONE;
+            }
+        }
+
+        private void generatePawnMoves(Board board) {
+            if (pawns == 0) return;
+
+            final long opponents = board.getPieces(!white);
+            final long occupied = board.getOccupied();
+            final int opponentKing = Bits.next(board.getKing(!white));
+
+            // Precompute attack and filter masks
+            final long opponentAttackMask = Attacks.pawnAttacks(Bits.of(opponentKing), !white);
+            final long filterMask = getFilterMask(opponents, opponentAttackMask);
+
+            if (filterMask == Square.NONE) return;
+
+            // Single and double pawn pushes
+            if (filter != MoveFilter.CAPTURES_ONLY) {
+                generatePawnPushes(occupied, filterMask);
+            }
+
+            // Pawn captures, en passant, and promotions
+            if (filter != MoveFilter.QUIET) {
+                if (!stopped) generatePawnCaptures(opponents, filterMask);
+                if (!stopped) generatePromotions(opponents, occupied);
+                if (!stopped) generateEnPassant(board);
+            }
+        }
+
+        private int countPawnMoves(Board board) {
+            if (pawns == 0) return 0;
+
+            final long opponents = board.getPieces(!white);
+            final long occupied = board.getOccupied();
+            final int opponentKing = Bits.next(board.getKing(!white));
+
+            // Precompute attack and filter masks
+            final long opponentAttackMask = Attacks.pawnAttacks(Bits.of(opponentKing), !white);
+            final long filterMask = getFilterMask(opponents, opponentAttackMask);
+
+            if (filterMask == Square.NONE) return 0;
+
+            // Unpinned pawns can be counted in bulk; pinned pawns must stay on their own pin ray
+            int count = countPawnMoves(pawns & ~pinMask, opponents, occupied, filterMask, Square.ALL);
+            long pinnedPawns = pawns & pinMask;
+            while (pinnedPawns != 0) {
+                final int from = Bits.next(pinnedPawns);
+                count += countPawnMoves(Bits.of(from), opponents, occupied, filterMask, pinRay(from));
+                pinnedPawns = Bits.pop(pinnedPawns);
+            }
+
+            if (filter != MoveFilter.QUIET) {
+                count += countEnPassantMoves(board);
+            }
+            return count;
+        }
+
+        private int countPawnMoves(long pawns, long opponents, long occupied, long filterMask, long rayMask) {
+            int count = 0;
+
+            // Single and double pawn pushes
+            if (filter != MoveFilter.CAPTURES_ONLY) {
+                final long pushes = pushMask & filterMask & rayMask;
+                count += Bits.count(Attacks.pawnSingleMoves(pawns, occupied, white) & pushes);
+                count += Bits.count(Attacks.pawnDoubleMoves(pawns, occupied, white) & pushes);
+            }
+
+            // Pawn captures and promotions (each promotion counts once per promotion piece)
+            if (filter != MoveFilter.QUIET) {
+                final long captures = captureMask & filterMask & rayMask;
+                final long promoCaptures = (captureMask | pushMask) & rayMask;
+                count += Bits.count(Attacks.pawnLeftCaptures(pawns, opponents, white) & captures);
+                count += Bits.count(Attacks.pawnRightCaptures(pawns, opponents, white) & captures);
+                count += 4 * Bits.count(Attacks.pawnPushPromotions(pawns, occupied, white) & pushMask & rayMask);
+                count += 4 * Bits.count(Attacks.pawnLeftCapturePromotions(pawns, opponents, white) & promoCaptures);
+                count += 4 * Bits.count(Attacks.pawnRightCapturePromotions(pawns, opponents, white) & promoCaptures);
+            }
+            return count;
+        }
+
+        private int countEnPassantMoves(Board board) {
+            if (board.enPassantFile() < 0) return 0;
+
+            final long enPassantFile = File.toBitboard(board.enPassantFile());
+            final long leftEnPassants = Attacks.pawnLeftEnPassants(pawns, enPassantFile, white);
+            final long rightEnPassants = Attacks.pawnRightEnPassants(pawns, enPassantFile, white);
+
+            return countEnPassantMoves(board, leftEnPassants, 7, 9) + countEnPassantMoves(board, rightEnPassants, 9, 7);
+        }
+
+        private int countEnPassantMoves(Board board, long enPassantMask, int offsetWhite, int offsetBlack) {
+            int count = 0;
+            while (enPassantMask != 0) {
+                final int to = Bits.next(enPassantMask);
+                final int from = white ? to - offsetWhite : to + offsetBlack;
+                if (!leavesKingInCheck(board, new Move(from, to, Move.EN_PASSANT_FLAG), white)) {
+                    count++;
+                }
+                enPassantMask = Bits.pop(enPassantMask);
+            }
+            return count;
+        }
+
+        private void generatePawnPushes(long occupied, long filterMask) {
+            // Single and double pawn pushes combined
+            long singleMoves = Attacks.pawnSingleMoves(pawns, occupied, white) & pushMask & filterMask;
+            long doubleMoves = Attacks.pawnDoubleMoves(pawns, occupied, white) & pushMask & filterMask;
+
+            while (singleMoves != 0 && !stopped) {
+                final int to = Bits.next(singleMoves);
+                final int from = white ? to - 8 : to + 8;
+                if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
+                    emit(Move.pack(from, to));
+                }
+                singleMoves = Bits.pop(singleMoves);
+            }
+
+            while (doubleMoves != 0 && !stopped) {
+                final int to = Bits.next(doubleMoves);
+                final int from = white ? to - 16 : to + 16;
+                if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
+                    emit(Move.pack(from, to, Move.PAWN_DOUBLE_MOVE_FLAG));
+                }
+                doubleMoves = Bits.pop(doubleMoves);
+            }
+        }
+
+        private void generatePawnCaptures(long opponents, long filterMask) {
+            long leftCaptures = Attacks.pawnLeftCaptures(pawns, opponents, white) & captureMask & filterMask;
+            long rightCaptures = Attacks.pawnRightCaptures(pawns, opponents, white) & captureMask & filterMask;
+
+            while (leftCaptures != 0 && !stopped) {
+                final int to = Bits.next(leftCaptures);
+                final int from = white ? to - 7 : to + 9;
+                if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
+                    emit(Move.pack(from, to));
+                }
+                leftCaptures = Bits.pop(leftCaptures);
+            }
+
+            while (rightCaptures != 0 && !stopped) {
+                final int to = Bits.next(rightCaptures);
+                final int from = white ? to - 9 : to + 7;
+                if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
+                    emit(Move.pack(from, to));
+                }
+                rightCaptures = Bits.pop(rightCaptures);
+            }
+        }
+
+        private void generatePromotions(long opponents, long occupied) {
+            final long pushPromotions = Attacks.pawnPushPromotions(pawns, occupied, white) & pushMask;
+            final long leftCapturePromotions = Attacks.pawnLeftCapturePromotions(pawns, opponents, white) & (captureMask | pushMask);
+            final long rightCapturePromotions = Attacks.pawnRightCapturePromotions(pawns, opponents, white) & (captureMask | pushMask);
+
+            generatePromotionMoves(pushPromotions, 8, 8);
+            if (!stopped) generatePromotionMoves(leftCapturePromotions, 7, 9);
+            if (!stopped) generatePromotionMoves(rightCapturePromotions, 9, 7);
+        }
+
+        private void generatePromotionMoves(long promotionMask, int offsetWhite, int offsetBlack) {
+            while (promotionMask != 0 && !stopped) {
+                final int to = Bits.next(promotionMask);
+                final int from = white ? to - offsetWhite : to + offsetBlack;
+                if (!isPinned(from) || isMovingAlongPinRay(from, to)) {
+                    addPromotionMoves(from, to);
+                }
+                promotionMask = Bits.pop(promotionMask);
+            }
+        }
+
+        private void generateEnPassant(Board board) {
+            if (board.enPassantFile() < 0) return;
+
+            final long enPassantFile = File.toBitboard(board.enPassantFile());
+            final long leftEnPassants = Attacks.pawnLeftEnPassants(pawns, enPassantFile, white);
+            final long rightEnPassants = Attacks.pawnRightEnPassants(pawns, enPassantFile, white);
+
+            generateEnPassantMoves(board, leftEnPassants, 7, 9);
+            if (!stopped) generateEnPassantMoves(board, rightEnPassants, 9, 7);
+        }
+
+        private void generateEnPassantMoves(Board board, long enPassantMask, int offsetWhite, int offsetBlack) {
+            while (enPassantMask != 0 && !stopped) {
+                final int to = Bits.next(enPassantMask);
+                final int from = white ? to - offsetWhite : to + offsetBlack;
+                final Move move = new Move(from, to, Move.EN_PASSANT_FLAG);
+                if (!leavesKingInCheck(board, move, white)) {
+                    emit(move.value());
+                }
+                enPassantMask = Bits.pop(enPassantMask);
+            }
+        }
+
+        private long getFilterMask(long opponents, long opponentAttackMask) {
+            return checkersCount > 0 ? captureMask | pushMask : switch (filter) {
+                case ALL -> Square.ALL;
+                case CAPTURES_ONLY -> opponents;
+                case NOISY -> opponents | opponentAttackMask;
+                case QUIET -> ~opponents & ~opponentAttackMask;
+            };
+        }
+
+        private long getKnightFilterMask(Board board) {
+            final long opponents = board.getPieces(!white);
+            final int opponentKing = Bits.next(board.getKing(!white));
+            return checkersCount > 0 ? captureMask | pushMask : switch (filter) {
+                case ALL -> Square.ALL;
+                case CAPTURES_ONLY -> opponents;
+                case NOISY -> opponents | Attacks.knightAttacks(opponentKing);
+                case QUIET -> ~opponents & ~Attacks.knightAttacks(opponentKing);
+            };
+        }
+
+        private int countKnightMoves(Board board) {
+            if (knights == 0) return 0;
+
+            final long filterMask = getKnightFilterMask(board);
+            if (filterMask == Square.NONE) {
+                return 0;
+            }
+
+            // Pinned knights can never move
+            long unpinnedKnights = knights & ~pinMask;
+
+            int count = 0;
+            while (unpinnedKnights != 0) {
+                final int from = Bits.next(unpinnedKnights);
+                count += Bits.count(getKnightAttacks(board, from, white) & (pushMask | captureMask) & filterMask);
+                unpinnedKnights = Bits.pop(unpinnedKnights);
+            }
+            return count;
+        }
+
+        private void generateKnightMoves(Board board) {
+            if (knights == 0) return;
+
+            // Initialize filter mask based on move filter type
+            final long filterMask = getKnightFilterMask(board);
+            if (filterMask == Square.NONE) {
+                return;
+            }
+
+            // Exclude pinned knights from generating moves
+            long unpinnedKnights = knights & ~pinMask;
+
+            // Generate legal knight moves
+            while (unpinnedKnights != 0 && !stopped) {
+                final int from = Bits.next(unpinnedKnights);
+                long possibleMoves = getKnightAttacks(board, from, white) & (pushMask | captureMask) & filterMask;
+                while (possibleMoves != 0 && !stopped) {
+                    final int to = Bits.next(possibleMoves);
+                    emit(Move.pack(from, to));
+                    possibleMoves = Bits.pop(possibleMoves);
+                }
+                unpinnedKnights = Bits.pop(unpinnedKnights);
+            }
+        }
+
+        private void generateKingMoves(Board board) {
+            final int from = Bits.next(king);
+            long legalKingMoves = getLegalKingMoves(board);
+
+            // Generate legal king moves
+            while (legalKingMoves != 0 && !stopped) {
+                final int to = Bits.next(legalKingMoves);
+                emit(Move.pack(from, to));
+                legalKingMoves = Bits.pop(legalKingMoves);
+            }
+        }
+
+        /**
+         * Calculates the bitboard of squares the king can legally move to, excluding castling.
+         */
+        private long getLegalKingMoves(Board board) {
+            final int from = Bits.next(king);
+            final long friendlies = board.getPieces(white);
+            final long opponents = board.getPieces(!white);
+
+            final long filterMask = checkersCount > 0 ? captureMask | pushMask : switch (filter) {
+                case ALL -> Square.ALL;
+                case CAPTURES_ONLY, NOISY -> opponents;
+                case QUIET -> ~opponents;
+            };
+            if (filterMask == Square.NONE) {
+                return Square.NONE;
+            }
+
+            long kingMoves = Attacks.kingAttacks(from) & ~friendlies & filterMask;
+
+            // Temporarily remove the king from the board
+            board.removeKing(white);
+
+            // Filter out the end squares attacked by the opponent
+            long legalKingMoves = 0L;
+            while (kingMoves != 0) {
+                final int to = Bits.next(kingMoves);
+                if (!isAttacked(board, white, Bits.of(to))) {
+                    legalKingMoves |= Bits.of(to);
+                }
+                kingMoves = Bits.pop(kingMoves);
+            }
+
+            // Restore the king to its original position on the board, before handing any moves to the consumer
+            board.addKing(from, white);
+
+            return legalKingMoves;
+        }
+
+        private int countCastlingMoves(Board board) {
+            if ((filter != MoveFilter.ALL && filter != MoveFilter.QUIET)
+                    || checkersMask != 0) {
+                return 0;
+            }
+            final int from = Bits.next(king);
+            final long occupied = board.getOccupied();
+
+            int count = 0;
+            if (Castling.kingsideAllowed(board.rights(), white)
+                    && isCastlingAllowed(board, white, true, from, occupied)) {
+                count++;
+            }
+            if (Castling.queensideAllowed(board.rights(), white)
+                    && isCastlingAllowed(board, white, false, from, occupied)) {
+                count++;
+            }
+            return count;
+        }
+
+        private void generateCastlingMoves(Board board) {
+            if ((filter != MoveFilter.ALL && filter != MoveFilter.QUIET)
+                    || checkersMask != 0) {
+                return;
+            }
+            final int from = Bits.next(king);
+            final long occupied = board.getOccupied();
+
+            final boolean isKingsideAllowed = Castling.kingsideAllowed(board.rights(), white);
+            if (isKingsideAllowed) {
+                generateCastlingMove(board, white, true, from, occupied);
+            }
+
+            final boolean isQueensideAllowed = Castling.queensideAllowed(board.rights(), white);
+            if (isQueensideAllowed && !stopped) {
+                generateCastlingMove(board, white, false, from, occupied);
+            }
+
+        }
+
+        private void generateCastlingMove(Board board, boolean white, boolean kingside, int kingSquare, long occupied) {
+            if (isCastlingAllowed(board, white, kingside, kingSquare, occupied)) {
+                int to = getCastleEndSquare(board, white, kingside);
+                emit(Move.pack(kingSquare, to, Move.CASTLE_FLAG));
+            }
+        }
+
+        private boolean isCastlingAllowed(Board board, boolean white, boolean kingside, int kingSquare, long occupied) {
+            return switch (board.variant()) {
+                case STANDARD -> isStandardCastlingAllowed(board, white, kingside, occupied);
+                case CHESS960 -> isChess960CastlingAllowed(board, white, kingside, kingSquare, occupied);
+            };
+        }
+
+        private boolean isStandardCastlingAllowed(Board board, boolean white, boolean kingside, long occupied) {
+            final long travelSquares = Castling.Standard.travelSquares(white, kingside);
+            final long blockedSquares = travelSquares & occupied;
+            final long safeSquares = Castling.Standard.safeSquares(white, kingside);
+            return blockedSquares == 0 && !isAttacked(board, white, safeSquares);
+        }
+
+        private boolean isChess960CastlingAllowed(Board board, boolean white, boolean kingside, int kingSquare, long occupied) {
+            final int rookSquare = Castling.getRook(board.rights(), kingside, white);
+            final long rookSquareBit = Bits.of(rookSquare);
+            if ((pinMask & rookSquareBit) != 0) {
+                // can't castle if rook is pinned
+                return false;
+            }
+            final int kingDst = Castling.kingTo(kingside, white);
+            final int rookDst = Castling.rookTo(kingside, white);
+
+            final long kingTravelSquares = (Ray.between(kingSquare, kingDst) | Bits.of(kingDst));
+            final long rookTravelSquares = (Ray.between(rookSquare, rookDst) | Bits.of(rookDst));
+            // Warning : King and rook initial positions should be ignored when verifying if cells are free
+            final long travelSquares = (kingTravelSquares | rookTravelSquares) & ~ (rookSquareBit | Bits.of(kingSquare));
+
+            final long blockedSquares = travelSquares & occupied;
+            final long safeSquares = Bits.of(kingSquare) | Ray.between(kingSquare, kingDst) | Bits.of(kingDst);
+            return blockedSquares == 0 && !isAttacked(board, white, safeSquares);
+        }
+
+        private void generateAllSlidingMoves(Board board) {
+            if (filter == MoveFilter.ALL) {
+                final long diagonalSliders = bishops | queens;
+                final long orthogonalSliders = rooks | queens;
+                generateSlidingMoves(board, diagonalSliders, false, true);
+                if (!stopped) generateSlidingMoves(board, orthogonalSliders, true, false);
+            } else {
+                generateSlidingMoves(board, bishops, false, true);
+                if (!stopped) generateSlidingMoves(board, rooks, true, false);
+                if (!stopped) generateSlidingMoves(board, queens, true, true);
+            }
+        }
+
+        private int countAllSlidingMoves(Board board) {
+            if (filter == MoveFilter.ALL) {
+                final long diagonalSliders = bishops | queens;
+                final long orthogonalSliders = rooks | queens;
+                return countSlidingMoves(board, diagonalSliders, false, true)
+                        + countSlidingMoves(board, orthogonalSliders, true, false);
+            } else {
+                return countSlidingMoves(board, bishops, false, true)
+                        + countSlidingMoves(board, rooks, true, false)
+                        + countSlidingMoves(board, queens, true, true);
+            }
+        }
+
+        private int countSlidingMoves(Board board, long sliders, boolean isOrthogonal, boolean isDiagonal) {
+            if (sliders == 0) return 0;
+            final long occupied = board.getOccupied();
+            final long friendlies = board.getPieces(white);
+
+            final long filterMask = getSlidingFilterMask(board, occupied, isOrthogonal, isDiagonal);
+            if (filterMask == Square.NONE) {
+                return 0;
+            }
+
+            int count = 0;
+            while (sliders != 0) {
+                final int from = Bits.next(sliders);
+                long attackMask = getSlidingAttacks(from, friendlies, occupied, isDiagonal, isOrthogonal);
+                attackMask &= (pushMask | captureMask) & filterMask;
+                if (isPinned(from)) {
+                    attackMask &= pinRay(from);
+                }
+                count += Bits.count(attackMask);
+                sliders = Bits.pop(sliders);
+            }
+            return count;
+        }
+
+        private long getSlidingFilterMask(Board board, long occupied, boolean isOrthogonal, boolean isDiagonal) {
+            final long opponents = board.getPieces(!white);
+            return checkersCount > 0 ? captureMask | pushMask : switch (filter) {
+                case ALL -> Square.ALL;
+                case CAPTURES_ONLY -> opponents;
+                case NOISY -> getCaptureAndCheckMask(board, white, opponents, occupied, isDiagonal, isOrthogonal);
+                case QUIET -> ~getCaptureAndCheckMask(board, white, opponents, occupied, isDiagonal, isOrthogonal);
+            };
+        }
+
+        private void generateSlidingMoves(Board board, long sliders, boolean isOrthogonal, boolean isDiagonal) {
+            final long occupied = board.getOccupied();
+            final long friendlies = board.getPieces(white);
+
+            // Apply move filters
+            final long filterMask = getSlidingFilterMask(board, occupied, isOrthogonal, isDiagonal);
+            if (filterMask == Square.NONE) {
+                return;
+            }
+
+            while (sliders != 0 && !stopped) {
+                final int from = Bits.next(sliders);
+                long attackMask = getSlidingAttacks(from, friendlies, occupied, isDiagonal, isOrthogonal);
+
+                attackMask &= pushMask | captureMask;
+                attackMask &= filterMask;
+
+                // Handle pinned pieces
+                if (isPinned(from)) {
+                    attackMask &= pinRay(from);
+                }
+
+                sliders = Bits.pop(sliders);
+                while (attackMask != 0 && !stopped) {
+                    final int to = Bits.next(attackMask);
+                    emit(Move.pack(from, to));
+                    attackMask = Bits.pop(attackMask);
+                }
+            }
+        }
+
+        private long getCaptureAndCheckMask(Board board, boolean white, long opponents, long occupied, boolean isDiagonal, boolean isOrthogonal) {
+            final int opponentKing = Bits.next(board.getKing(!white));
+            long filterMask = opponents;
+            if (isDiagonal) {
+                filterMask |= Attacks.bishopAttacks(opponentKing, occupied);
+            }
+            if (isOrthogonal) {
+                filterMask |= Attacks.rookAttacks(opponentKing, occupied);
+            }
+            return filterMask;
+        }
+
+        private long calculateCheckers(Board board, int square) {
+            final long occupied = board.getOccupied();
+            final long friendlies = board.getPieces(white);
+            long attackerMask = 0L;
+
+            final long opponentPawns = board.getPawns(!white);
+            if (opponentPawns != 0) {
+                final long pawnAttackMask = getPawnAttacks(board, square, white);
+                attackerMask |= pawnAttackMask & opponentPawns;
+            }
+
+            final long opponentKnights = board.getKnights(!white);
+            if (opponentKnights != 0) {
+                final long knightAttackMask = getKnightAttacks(board, square, white);
+                attackerMask |= knightAttackMask & opponentKnights;
+            }
+
+            final long opponentBishops = board.getBishops(!white);
+            final long opponentQueens = board.getQueens(!white);
+            final long diagonalSliders = opponentBishops | opponentQueens;
+            if (diagonalSliders != 0) {
+                attackerMask |= getSlidingAttacks(square, friendlies, occupied, true, false) & diagonalSliders;
+            }
+
+            final long opponentRooks = board.getRooks(!white);
+            final long orthogonalSliders = opponentRooks | opponentQueens;
+            if (orthogonalSliders != 0) {
+                attackerMask |= getSlidingAttacks(square, friendlies, occupied, false, true) & orthogonalSliders;
+            }
+
+            // King can never give check
+
+            return attackerMask;
+        }
+
+        private void addPromotionMoves(int from, int to) {
+            if (emit(Move.pack(from, to, Move.PROMOTE_TO_QUEEN_FLAG))
+                    && emit(Move.pack(from, to, Move.PROMOTE_TO_ROOK_FLAG))
+                    && emit(Move.pack(from, to, Move.PROMOTE_TO_BISHOP_FLAG))) {
+                emit(Move.pack(from, to, Move.PROMOTE_TO_KNIGHT_FLAG));
+            }
+        }
+
+        /**
+         * Hands a legal move to the consumer, recording whether the consumer asked to stop generation.
+         * @return true if generation should continue
+         */
+        private boolean emit(short move) {
+            if (!consumer.accept(move)) {
+                stopped = true;
+            }
+            return !stopped;
+        }
+
+        private boolean isPinned(int from) {
+            return (Bits.of(from) & pinMask) != 0;
+        }
+
+        private boolean isMovingAlongPinRay(int from, int to) {
+            return (Bits.of(to) & pinRay(from)) != 0;
+        }
+
+        /**
+         * A pinned piece may only move along the line through its king, so the pin ray is simply that line. Squares past the
+         * pinner or behind the king are unreachable anyway, so there is no need to store a ray per pinned square.
+         */
+        private long pinRay(int from) {
+            return Ray.line(pinKingSquare, from);
+        }
+
+        private int getCastleEndSquare(Board board, boolean white, boolean kingside) {
+            // In standard chess, the king 'to' square is the actual destination square
+            // In Chess960 UCI notation, castle moves are encoded as king-captures-rook
+            return switch (board.variant()) {
+                case STANDARD -> kingside ? (white ? 6 : 62) : (white ? 2 : 58);
+                case CHESS960 -> Castling.getRook(board.rights(), kingside, white);
+            };
+        }
+
+        private void initPieces(Board board, boolean white) {
+            this.pawns = board.getPawns(white);
+            this.knights = board.getKnights(white);
+            this.bishops = board.getBishops(white);
+            this.rooks = board.getRooks(white);
+            this.queens = board.getQueens(white);
+            this.king = board.getKing(white);
+        }
 
-    /**
-     * Estimate the number of legal moves in the current position, based on the piece count and
-     * the average number of legal moves per piece. Used to initialise the legal moves ArrayList
-     * with a 'best guess', to reduce the number of times the ArrayList has to grow during move
-     * generation, yielding a small increase in performance.
-     */
-    private int estimateLegalMoves() {
-        return (Bits.count(pawns) * 2) +
-                (Bits.count(knights) * 3) +
-                (Bits.count(bishops) * 3) +
-                (Bits.count(rooks) * 6) +
-                (Bits.count(queens) * 9) +
-                (Bits.count(king) * 3);
-    }
-
-    private void initPieces(Board board, boolean white) {
-        this.pawns = board.getPawns(white);
-        this.knights = board.getKnights(white);
-        this.bishops = board.getBishops(white);
-        this.rooks = board.getRooks(white);
-        this.queens = board.getQueens(white);
-        this.king = board.getKing(white);
     }
 
     public enum MoveFilter {
@@ -0,0 +1,76 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Move;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A reusable, fixed-capacity buffer of moves, each packed into a 16-bit short (see {@link Move#value()}). Intended to be
+ * owned by the caller and re-used across calls to {@link MoveGenerator#generateMoves(com.kelseyde.calvin.board.Board,
+ * MoveGenerator.MoveFilter, MoveList)}, for example one list per ply in a search or perft, so that move generation
+ * allocates nothing in steady state.
+ */
+public class MoveList implements MoveConsumer {
+
+    /** The maximum number of legal moves in any reachable chess position is 218, so 256 is always sufficient. */
+    public static final int MAX_MOVES = 256;
+
+    private final short[] moves;
+    private int size;
+
+    public MoveList() {
+        this(MAX_MOVES);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new short[capacity];
+        this.size = 0;
+    }
+
+    public void add(short move) {
+        moves[size++] = move;
+    }
+
+    @Override
+    public boolean accept(short move) {
+        add(move);
+        return true;
+    }
+
+    public short get(int index) {
+        return moves[index];
+    }
+
+    /**
+     * Wraps the packed move at the given index in a {@link Move}. Note that this allocates.
+     */
+    public Move move(int index) {
+        return new Move(moves[index]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public short[] moves() {
+        return moves;
+    }
+
+    public List<Move> toList() {
+        final List<Move> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Move(moves[i]));
+        }
+        return list;
+    }
+
+}
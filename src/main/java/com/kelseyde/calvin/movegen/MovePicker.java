@@ -0,0 +1,119 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+
+/**
+ * Hands out the legal moves in a position one at a time, in stages, generating each stage only when it is reached:
+ * <ol>
+ *     <li>the hash move, if one is given and it is legal in the position;</li>
+ *     <li>the noisy moves (captures, promotions and checks), see {@link MoveFilter#NOISY};</li>
+ *     <li>the quiet moves, see {@link MoveFilter#QUIET}.</li>
+ * </ol>
+ * In an alpha-beta search most nodes cut off after the first move or two, so at those nodes the quiet moves are never
+ * generated. The hash move is not repeated in the later stages.
+ * <p>
+ * Between calls to {@link #next()} the board must be left in the same position, i.e. every move made on it must be
+ * unmade again. A picker can be re-used for another position with {@link #reset(Board, Move)}, for example one picker
+ * per ply, so that picking moves allocates nothing but the returned {@link Move}s.
+ */
+public class MovePicker {
+
+    public enum Stage {
+        HASH_MOVE,
+        NOISY,
+        QUIET,
+        END
+    }
+
+    private final MoveGenerator movegen;
+    private final MoveGenerator.Generation generation;
+    private final MoveList moves = new MoveList();
+
+    private Board board;
+    private Move hashMove;
+    private Stage stage;
+    private boolean generated;
+    private int index;
+
+    public MovePicker(MoveGenerator movegen) {
+        this.movegen = movegen;
+        this.generation = movegen.newGeneration();
+        this.stage = Stage.END;
+    }
+
+    public MovePicker(MoveGenerator movegen, Board board, Move hashMove) {
+        this(movegen);
+        reset(board, hashMove);
+    }
+
+    /**
+     * Prepares the picker for a new position.
+     * @param board the position to pick moves from
+     * @param hashMove the move to try first, or null if there is none
+     */
+    public void reset(Board board, Move hashMove) {
+        this.board = board;
+        this.hashMove = hashMove;
+        nextStage(Stage.HASH_MOVE);
+    }
+
+    /**
+     * Returns the next legal move, generating the next stage of moves if the current one is exhausted.
+     * @return the next move, or null if there are no moves left
+     */
+    public Move next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE -> {
+                    if (hashMove != null && movegen.isLegal(board, hashMove)) {
+                        nextStage(Stage.NOISY);
+                        return hashMove;
+                    }
+                    hashMove = null;
+                    nextStage(Stage.NOISY);
+                }
+                case NOISY, QUIET -> {
+                    if (!generated) {
+                        movegen.generateMoves(board, stage == Stage.NOISY ? MoveFilter.NOISY : MoveFilter.QUIET, moves, generation);
+                        generated = true;
+                    }
+                    final Move move = pickFromList();
+                    if (move != null) {
+                        return move;
+                    }
+                    nextStage(stage == Stage.NOISY ? Stage.QUIET : Stage.END);
+                }
+                case END -> {
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the stage the picker is currently in. Once the hash move has been returned, the picker is already in the
+     * noisy stage, although no noisy moves are generated until the next call to {@link #next()}.
+     */
+    public Stage stage() {
+        return stage;
+    }
+
+    private void nextStage(Stage stage) {
+        this.stage = stage;
+        this.generated = false;
+        this.index = 0;
+    }
+
+    private Move pickFromList() {
+        while (index < moves.size()) {
+            final short move = moves.get(index++);
+            if (hashMove == null || move != hashMove.value()) {
+                return new Move(move);
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.kelseyde.calvin.movegen;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Parallel bit extract: gathers the bits of a value selected by a mask into the low bits of the result, preserving
+ * their order. Indexing a per-square attack table with the extracted occupancy bits gives a dense table with no
+ * magic multiplication.
+ * <p>
+ * From JDK 19, {@code Long.compress} performs exactly this operation, and is intrinsified to the BMI2 {@code PEXT}
+ * instruction on x86. It is bound here at runtime, so that the library still compiles and runs on Java 17, where a
+ * (much slower) portable fallback is used instead.
+ *
+ * @see <a href="https://www.chessprogramming.org/BMI2#PEXTBitboards">Chess Programming Wiki</a>
+ */
+public final class Pext {
+
+    private static final MethodHandle COMPRESS = findCompress();
+
+    /**
+     * Whether {@code Long.compress} is available in the running JVM.
+     */
+    public static final boolean INTRINSIC = COMPRESS != null;
+
+    private Pext() {
+    }
+
+    public static long compress(long value, long mask) {
+        if (COMPRESS != null) {
+            try {
+                return (long) COMPRESS.invokeExact(value, mask);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return softwareCompress(value, mask);
+    }
+
+    /**
+     * Portable bit extract, visiting each set bit of the mask in turn.
+     */
+    public static long softwareCompress(long value, long mask) {
+        long result = 0L;
+        for (long bit = 1L; mask != 0; bit <<= 1) {
+            if ((value & mask & -mask) != 0) {
+                result |= bit;
+            }
+            mask &= mask - 1;
+        }
+        return result;
+    }
+
+    private static MethodHandle findCompress() {
+        try {
+            return MethodHandles.publicLookup().findStatic(Long.class, "compress",
+                    MethodType.methodType(long.class, long.class, long.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+}
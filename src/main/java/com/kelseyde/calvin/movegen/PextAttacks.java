@@ -0,0 +1,27 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Square;
+
+/**
+ * Slider attacks indexed by the occupancy bits extracted under each square's mask (see {@link Pext}), giving dense
+ * per-square tables with no magic multiplication. Only worthwhile where {@code Long.compress} is intrinsified.
+ *
+ * @see <a href="https://www.chessprogramming.org/BMI2#PEXTBitboards">Chess Programming Wiki</a>
+ */
+public final class PextAttacks implements SliderAttacks {
+
+    public static final int[] ROOK_OFFSETS = new int[Square.COUNT];
+    public static final int[] BISHOP_OFFSETS = new int[Square.COUNT];
+    public static final long[] ATTACKS = Attacks.initPextAttacks(ROOK_OFFSETS, BISHOP_OFFSETS);
+
+    @Override
+    public long rookAttacks(int square, long occupied) {
+        return ATTACKS[ROOK_OFFSETS[square] + (int) Pext.compress(occupied, Attacks.ROOK_MASKS[square])];
+    }
+
+    @Override
+    public long bishopAttacks(int square, long occupied) {
+        return ATTACKS[BISHOP_OFFSETS[square] + (int) Pext.compress(occupied, Attacks.BISHOP_MASKS[square])];
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.kelseyde.calvin.movegen;
+
+/**
+ * Computes the attacks of a sliding piece from a square, given the occupied squares of the board. Attacks include the
+ * first blocker in each direction, whichever side it belongs to.
+ * <p>
+ * {@link Attacks} delegates to a single implementation, chosen once at startup with the {@code calvin.attacks} system
+ * property (see {@link #of(String)}). Since the choice is held in a static final field, the JIT sees a single
+ * implementation and inlines it, so there is no dispatch cost.
+ */
+public interface SliderAttacks {
+
+    long rookAttacks(int square, long occupied);
+
+    long bishopAttacks(int square, long occupied);
+
+    /**
+     * @param name one of {@code magic}, {@code pext}, {@code hyperbola}, {@code koggestone} or {@code classical}
+     */
+    static SliderAttacks of(String name) {
+        return switch (name.toLowerCase()) {
+            case "magic" -> new MagicAttacks();
+            case "pext" -> new PextAttacks();
+            case "hyperbola" -> new HyperbolaAttacks();
+            case "koggestone" -> new KoggeStoneAttacks();
+            case "classical" -> new ClassicalAttacks();
+            default -> throw new IllegalArgumentException("Unknown slider attacks " + name);
+        };
+    }
+
+}
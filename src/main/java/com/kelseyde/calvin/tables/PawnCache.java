@@ -0,0 +1,186 @@
+package com.kelseyde.calvin.tables;
+
+import com.kelseyde.calvin.board.Bits;
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Colour;
+
+/**
+ * A small, fixed-size, direct-mapped cache of pawn structure, keyed on the pawn key of the position (see
+ * {@link Board#pawnKey()}). The same pawn structures recur across a huge number of positions in a search tree, so the
+ * derived pawn bitboards are computed once per structure and then simply looked up.
+ * <p>
+ * Entries are allocated up-front and overwritten in place, so a lookup allocates nothing. This also means that an
+ * {@link Entry} returned by {@link #get(Board)} is only valid until the next lookup that maps to the same slot. The
+ * cache is not thread-safe; give each search thread its own.
+ *
+ * @see <a href="https://www.chessprogramming.org/Pawn_Hash_Table">Chess Programming Wiki</a>
+ */
+public class PawnCache {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    public PawnCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The number of entries in the cache, rounded down to a power of two.
+     */
+    public PawnCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0");
+        }
+        final int size = Integer.highestOneBit(capacity);
+        this.entries = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            entries[i] = new Entry();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Returns the pawn structure of the given position, computing and caching it if it is not already cached.
+     */
+    public Entry get(Board board) {
+        final long key = board.pawnKey();
+        final Entry entry = entries[(int) key & mask];
+        if (!entry.filled || entry.key != key) {
+            entry.compute(key, board.getPawns(true), board.getPawns(false));
+        }
+        return entry;
+    }
+
+    public void clear() {
+        for (Entry entry : entries) {
+            entry.filled = false;
+        }
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * The pawn bitboards derived from one pawn structure. Per-colour bitboards are indexed by {@link Colour#index}.
+     */
+    public static class Entry {
+
+        private long key;
+        private boolean filled;
+        private final long[] passed = new long[2];
+        private final long[] isolated = new long[2];
+        private final long[] doubled = new long[2];
+        private final long[] backward = new long[2];
+        private final long[] attackSpans = new long[2];
+        private final long[] halfOpenFiles = new long[2];
+        private long openFiles;
+
+        /**
+         * Pawns with no enemy pawns in front of them on the same or an adjacent file.
+         */
+        public long passed(boolean white) {
+            return passed[Colour.index(white)];
+        }
+
+        /**
+         * Pawns with no friendly pawns on an adjacent file.
+         */
+        public long isolated(boolean white) {
+            return isolated[Colour.index(white)];
+        }
+
+        /**
+         * Pawns with a friendly pawn in front of them on the same file.
+         */
+        public long doubled(boolean white) {
+            return doubled[Colour.index(white)];
+        }
+
+        /**
+         * Pawns which cannot be defended by a friendly pawn as they advance, and whose stop square is attacked by an
+         * enemy pawn.
+         */
+        public long backward(boolean white) {
+            return backward[Colour.index(white)];
+        }
+
+        /**
+         * Every square the pawns could ever attack as they advance.
+         */
+        public long attackSpans(boolean white) {
+            return attackSpans[Colour.index(white)];
+        }
+
+        /**
+         * Files (as full file bitboards) with no pawns of either colour.
+         */
+        public long openFiles() {
+            return openFiles;
+        }
+
+        /**
+         * Files (as full file bitboards) with no pawns of the given colour, but at least one enemy pawn.
+         */
+        public long halfOpenFiles(boolean white) {
+            return halfOpenFiles[Colour.index(white)];
+        }
+
+        void compute(long key, long whitePawns, long blackPawns) {
+            this.key = key;
+            this.filled = true;
+            compute(whitePawns, blackPawns, true);
+            compute(blackPawns, whitePawns, false);
+            openFiles = ~fileFill(whitePawns | blackPawns);
+        }
+
+        private void compute(long pawns, long enemyPawns, boolean white) {
+            final int colour = Colour.index(white);
+            final long frontSpans = frontSpans(pawns, white);
+            final long enemyFrontSpans = frontSpans(enemyPawns, !white);
+            final long enemyAttackSpans = Bits.east(enemyFrontSpans) | Bits.west(enemyFrontSpans);
+            final long ownFiles = fileFill(pawns);
+            final long stops = white ? Bits.north(pawns) : Bits.south(pawns);
+            final long enemyAttacks = white
+                    ? Bits.southEast(enemyPawns) | Bits.southWest(enemyPawns)
+                    : Bits.northEast(enemyPawns) | Bits.northWest(enemyPawns);
+
+            attackSpans[colour] = Bits.east(frontSpans) | Bits.west(frontSpans);
+            passed[colour] = pawns & ~(enemyFrontSpans | enemyAttackSpans);
+            isolated[colour] = pawns & ~(Bits.east(ownFiles) | Bits.west(ownFiles));
+            doubled[colour] = pawns & frontSpans(pawns, !white);
+            final long backwardStops = stops & enemyAttacks & ~attackSpans[colour];
+            backward[colour] = white ? Bits.south(backwardStops) : Bits.north(backwardStops);
+            halfOpenFiles[colour] = ~ownFiles & fileFill(enemyPawns);
+        }
+
+        /**
+         * Returns the squares in front of each pawn, from the perspective of the given side, excluding the pawn itself.
+         */
+        private static long frontSpans(long pawns, boolean white) {
+            return white ? northFill(Bits.north(pawns)) : southFill(Bits.south(pawns));
+        }
+
+        private static long northFill(long bb) {
+            bb |= bb << 8;
+            bb |= bb << 16;
+            bb |= bb << 32;
+            return bb;
+        }
+
+        private static long southFill(long bb) {
+            bb |= bb >>> 8;
+            bb |= bb >>> 16;
+            bb |= bb >>> 32;
+            return bb;
+        }
+
+        private static long fileFill(long bb) {
+            return northFill(bb) | southFill(bb);
+        }
+
+    }
+
+}
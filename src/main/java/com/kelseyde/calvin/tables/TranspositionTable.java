@@ -0,0 +1,249 @@
+package com.kelseyde.calvin.tables;
+
+import com.kelseyde.calvin.board.Move;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A fixed-size transposition table, storing the best move, score, depth and bound of a position keyed on its Zobrist
+ * key (see {@link com.kelseyde.calvin.board.Board#key()}).
+ * <p>
+ * The table is a single power-of-two sized {@code long[]}, divided into buckets of four entries, so that a bucket is 64
+ * bytes and fits in one cache line. Each entry is two longs: the packed data and the key XOR'ed with the data. A reader
+ * only accepts an entry if the XOR of the two longs gives back the key, so a torn write by a concurrent thread simply
+ * reads as a miss, and the table can be shared across search threads without locking.
+ * <p>
+ * The data of an entry is packed into a single long, and is returned as-is by {@link #probe(long)}; use the static
+ * accessors ({@link #move(long)}, {@link #score(long)}, {@link #depth(long)}, {@link #bound(long)}) to unpack it.
+ * <pre>
+ *  bits  0-15: move
+ *  bits 16-31: score (signed)
+ *  bits 32-39: depth
+ *  bits 40-41: bound
+ *  bits 42-47: age
+ * </pre>
+ *
+ * @see <a href="https://www.chessprogramming.org/Shared_Hash_Table#Lockless">Chess Programming Wiki</a>
+ */
+public class TranspositionTable {
+
+    /** The score is exact. */
+    public static final int EXACT = 1;
+    /** The score is a lower bound (the search failed high). */
+    public static final int LOWER = 2;
+    /** The score is an upper bound (the search failed low). */
+    public static final int UPPER = 3;
+
+    private static final int ENTRY_SIZE = 2;
+    private static final int ENTRIES_PER_BUCKET = 4;
+    private static final int BUCKET_SIZE = ENTRIES_PER_BUCKET * ENTRY_SIZE;
+    private static final int BUCKET_BYTES = BUCKET_SIZE * Long.BYTES;
+
+    private static final int SCORE_SHIFT = 16;
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int AGE_SHIFT = 42;
+    private static final long DEPTH_MASK = 0xFF;
+    private static final long BOUND_MASK = 0x3;
+    private static final int AGE_MASK = 0x3F;
+    private static final int AGE_CYCLE = AGE_MASK + 1;
+
+    // The age penalty, in plies of depth, when choosing which entry in a bucket to replace
+    private static final int AGE_WEIGHT = 8;
+    private static final int HASHFULL_SAMPLE = 1000;
+
+    private long[] table;
+    private int mask;
+    private int age;
+
+    /**
+     * @param sizeMb The size of the table in megabytes. The number of buckets is rounded down to a power of two.
+     */
+    public TranspositionTable(int sizeMb) {
+        resize(sizeMb);
+    }
+
+    /**
+     * Looks up the given position.
+     * @return the packed entry data, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        final long[] table = this.table;
+        final int index = index(key);
+        for (int i = index; i < index + BUCKET_SIZE; i += ENTRY_SIZE) {
+            final long data = table[i + 1];
+            if (data != 0 && (table[i] ^ data) == key) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * Stores an entry for the given position. An existing entry for the same position is overwritten, keeping its move
+     * if the new move is null. Otherwise the entry with the lowest depth, less a penalty for each search it is older than
+     * the current one, is replaced.
+     * @param move the best move, or null if there is none
+     * @param score the score, from -32768 to 32767
+     * @param depth the depth searched, from 0 to 255
+     * @param bound one of {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @throws IllegalArgumentException if the score, depth or bound is out of range
+     */
+    public void put(long key, Move move, int score, int depth, int bound) {
+        final long[] table = this.table;
+        final int index = index(key);
+        int slot = index;
+        int lowest = Integer.MAX_VALUE;
+        for (int i = index; i < index + BUCKET_SIZE; i += ENTRY_SIZE) {
+            final long data = table[i + 1];
+            if (data == 0) {
+                if (lowest > Integer.MIN_VALUE) {
+                    slot = i;
+                    lowest = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            if ((table[i] ^ data) == key) {
+                if (move == null) {
+                    move = move(data);
+                }
+                slot = i;
+                break;
+            }
+            final int value = depth(data) - AGE_WEIGHT * relativeAge(data);
+            if (value < lowest) {
+                slot = i;
+                lowest = value;
+            }
+        }
+        final long data = pack(move, score, depth, bound);
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from previous searches are replaced first.
+     */
+    public void incrementAge() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Re-allocates the table with the given size, discarding all entries. Must not be called while other threads are
+     * using the table.
+     * @param sizeMb The size of the table in megabytes. The number of buckets is rounded down to a power of two.
+     */
+    public void resize(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Size must be greater than 0");
+        }
+        final long buckets = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BUCKET_BYTES);
+        final int maxBuckets = Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_SIZE);
+        final int bucketCount = (int) Math.min(buckets, maxBuckets);
+        this.table = new long[bucketCount * BUCKET_SIZE];
+        this.mask = bucketCount - 1;
+        this.age = 0;
+    }
+
+    /**
+     * Clears all entries, splitting the table into chunks that are zeroed in parallel in the common fork/join pool.
+     */
+    public void clear() {
+        clear(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Clears all entries, zeroing the given number of chunks in parallel. Chunks are whole buckets, and the last chunk
+     * always ends at the end of the table.
+     */
+    void clear(int chunks) {
+        final long[] table = this.table;
+        final int buckets = table.length / BUCKET_SIZE;
+        final int bucketsPerChunk = (buckets + chunks - 1) / chunks;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            final int from = (int) Math.min(table.length, (long) chunk * bucketsPerChunk * BUCKET_SIZE);
+            final int to = chunk == chunks - 1
+                    ? table.length
+                    : (int) Math.min(table.length, (long) (chunk + 1) * bucketsPerChunk * BUCKET_SIZE);
+            Arrays.fill(table, from, to, 0L);
+        });
+        age = 0;
+    }
+
+    /**
+     * Estimates how full the table is, by sampling the first thousand entries for those written during the current
+     * search, as reported by the UCI 'hashfull' info.
+     * @return the estimated fill rate in permille
+     */
+    public int hashfull() {
+        final long[] table = this.table;
+        final int sample = Math.min(HASHFULL_SAMPLE, table.length / ENTRY_SIZE);
+        int count = 0;
+        for (int i = 0; i < sample * ENTRY_SIZE; i += ENTRY_SIZE) {
+            final long data = table[i + 1];
+            if (data != 0 && age(data) == age) {
+                count++;
+            }
+        }
+        return count * 1000 / sample;
+    }
+
+    /**
+     * @return the size of the table in bytes
+     */
+    public long size() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * @return the move of the entry, or null if it has none
+     */
+    public static Move move(long data) {
+        final short move = (short) data;
+        return move != 0 ? new Move(move) : null;
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> DEPTH_SHIFT) & DEPTH_MASK);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> BOUND_SHIFT) & BOUND_MASK);
+    }
+
+    private static int age(long data) {
+        return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    private int relativeAge(long data) {
+        return (age - age(data) + AGE_CYCLE) & AGE_MASK;
+    }
+
+    private long pack(Move move, int score, int depth, int bound) {
+        if (bound < EXACT || bound > UPPER) {
+            throw new IllegalArgumentException("Invalid bound " + bound);
+        }
+        if (score < Short.MIN_VALUE || score > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Score out of range " + score);
+        }
+        if (depth < 0 || depth > DEPTH_MASK) {
+            throw new IllegalArgumentException("Depth out of range " + depth);
+        }
+        final long moveBits = move != null ? move.value() & 0xFFFFL : 0L;
+        return moveBits
+                | (score & 0xFFFFL) << SCORE_SHIFT
+                | (depth & DEPTH_MASK) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) age << AGE_SHIFT;
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) * BUCKET_SIZE;
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.kelseyde.calvin.utils;
+
+import com.kelseyde.calvin.board.Square;
+import com.kelseyde.calvin.movegen.Attacks;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Searches for the fixed-shift rook magics used by {@link Attacks}, and prints them as Java constants.
+ * <p>
+ * Rook attacks are looked up separately along the file and the rank through the square. Each line has at most six
+ * relevant occupancy bits, so every square's table fits in 64 entries with a fixed shift of 58, and both tables together
+ * take 64 KB. A single magic over the whole rook mask needs up to 12 bits, and around 750 KB of tables in total, which
+ * competes for L2 with the hash tables.
+ * <p>
+ * Magics are found by trial and error: sparse random numbers are tried until one maps every relevant occupancy of the
+ * line to a slot holding the right attacks. Occupancies with the same attacks may share a slot.
+ *
+ * @see <a href="https://www.chessprogramming.org/Looking_for_Magics">Chess Programming Wiki</a>
+ */
+public final class MagicFinder {
+
+    private static final long MAX_ATTEMPTS = 100_000_000L;
+
+    private MagicFinder() {
+    }
+
+    /**
+     * Run with: java -cp target/classes com.kelseyde.calvin.utils.MagicFinder [seed]
+     */
+    public static void main(String[] args) {
+        final Random random = new Random(args.length > 0 ? Long.parseLong(args[0]) : 0L);
+        final long[] fileMagics = new long[Square.COUNT];
+        final long[] rankMagics = new long[Square.COUNT];
+        for (int square = 0; square < Square.COUNT; square++) {
+            fileMagics[square] = findMagic(square, true, random);
+            rankMagics[square] = findMagic(square, false, random);
+        }
+        print("ROOK_FILE_MAGICS", fileMagics);
+        print("ROOK_RANK_MAGICS", rankMagics);
+    }
+
+    /**
+     * Returns a magic mapping every relevant occupancy of the file (or rank) through the square to a slot of a 64-entry
+     * table, such that each slot holds the rook attacks along that line.
+     * @throws IllegalStateException if no magic is found
+     */
+    public static long findMagic(int square, boolean file, Random random) {
+        final long[] occupancies = Attacks.initBlockerMasks(mask(square, file));
+        final long[] attacks = attacks(square, file, occupancies);
+        final long[] table = new long[1 << (Square.COUNT - Attacks.ROOK_LINE_SHIFT)];
+        for (long attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            final long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (isMagic(table, occupancies, attacks, magic)) {
+                return magic;
+            }
+        }
+        throw new IllegalStateException("No magic found for square " + square);
+    }
+
+    /**
+     * Whether the magic maps no two occupancies of the file (or rank) with different attacks to the same slot.
+     */
+    public static boolean isMagic(int square, boolean file, long magic) {
+        final long[] occupancies = Attacks.initBlockerMasks(mask(square, file));
+        final long[] table = new long[1 << (Square.COUNT - Attacks.ROOK_LINE_SHIFT)];
+        return isMagic(table, occupancies, attacks(square, file, occupancies), magic);
+    }
+
+    private static long mask(int square, boolean file) {
+        return file ? Attacks.ROOK_FILE_MASKS[square] : Attacks.ROOK_RANK_MASKS[square];
+    }
+
+    private static long[] attacks(int square, boolean file, long[] occupancies) {
+        final long[] attacks = new long[occupancies.length];
+        for (int i = 0; i < occupancies.length; i++) {
+            attacks[i] = Attacks.initLineAttackMask(square, occupancies[i], file);
+        }
+        return attacks;
+    }
+
+    private static boolean isMagic(long[] table, long[] occupancies, long[] attacks, long magic) {
+        // Slider attacks are never empty, so an empty slot is unused
+        Arrays.fill(table, 0L);
+        for (int i = 0; i < occupancies.length; i++) {
+            final int index = (int) ((occupancies[i] * magic) >>> Attacks.ROOK_LINE_SHIFT);
+            if (table[index] == 0L) {
+                table[index] = attacks[i];
+            } else if (table[index] != attacks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void print(String name, long[] values) {
+        System.out.printf("    public static final long[] %s = new long[] {%n", name);
+        for (int i = 0; i < values.length; i += 4) {
+            System.out.print("           ");
+            for (int j = i; j < i + 4; j++) {
+                System.out.printf(" 0x%016XL%s", values[j], j < values.length - 1 ? "," : "");
+            }
+            System.out.println();
+        }
+        System.out.println("    };");
+    }
+
+}
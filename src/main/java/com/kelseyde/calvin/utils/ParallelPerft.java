@@ -0,0 +1,140 @@
+package com.kelseyde.calvin.utils;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.utils.Perft.Result;
+import com.kelseyde.calvin.utils.Perft.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * A multi-threaded variant of {@link Perft}, which splits the top of the move generation tree into fork/join tasks.
+ * Each task gets its own copy of the board, while all tasks share one {@link MoveGenerator}; once the remaining depth
+ * reaches the split depth, the subtree is walked serially using {@link Perft}. The aggregated {@link Result}, including
+ * {@link Result#divide()}, is identical to that of the serial version.
+ */
+public class ParallelPerft {
+
+    /** The default remaining depth at or below which subtrees are walked serially. */
+    public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+    private final int splitDepth;
+    private final PerftHashTable hashTable;
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    public ParallelPerft() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * @param pool The fork/join pool in which to run the perft tasks
+     * @param splitDepth The remaining depth at or below which subtrees are walked serially, rather than split into
+     *                   further tasks. Must be at least 1.
+     */
+    public ParallelPerft(ForkJoinPool pool, int splitDepth) {
+        this(pool, splitDepth, null);
+    }
+
+    /**
+     * @param pool The fork/join pool in which to run the perft tasks
+     * @param splitDepth The remaining depth at or below which subtrees are walked serially, rather than split into
+     *                   further tasks. Must be at least 1.
+     * @param hashTable A hash table shared by all the workers, or null to disable hashing (see {@link Perft#Perft(PerftHashTable)})
+     */
+    public ParallelPerft(ForkJoinPool pool, int splitDepth, PerftHashTable hashTable) {
+        if (splitDepth < 1) {
+            throw new IllegalArgumentException("Split depth must be greater than 0");
+        }
+        this.pool = pool;
+        this.splitDepth = splitDepth;
+        this.hashTable = hashTable;
+    }
+
+    /** Performs a non bulk Perft (Performance Test) calculation.
+     * @param board The board to run the performance test on. The board is not modified.
+     * @param depth The depth to run the performance test to
+     * @return a non null result
+     */
+    public Result perft(Board board, int depth) {
+        return perft(board, depth, Type.NON_BULK);
+    }
+
+    /**  Performs a Perft (Performance Test) calculation.
+     * @param board The board to run the performance test on. The board is not modified.
+     * @param depth The depth to run the performance test to
+     * @param type The type of Perft to run
+     * @return a non null result
+     */
+    public Result perft(Board board, int depth, Type type) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Depth must be greater than 0");
+        }
+        return pool.invoke(new PerftTask(board.copy(), depth, type, true));
+    }
+
+    private class PerftTask extends RecursiveTask<Result> {
+
+        private final Board board;
+        private final int depth;
+        private final Type type;
+        private final boolean root;
+
+        private PerftTask(Board board, int depth, Type type, boolean root) {
+            this.board = board;
+            this.depth = depth;
+            this.type = type;
+            this.root = root;
+        }
+
+        @Override
+        protected Result compute() {
+            final boolean hashed = hashTable != null && !root && depth > 1;
+            if (hashed) {
+                final long hashedCount = hashTable.get(board.key(), depth);
+                if (hashedCount >= 0) {
+                    final Result result = new Result();
+                    result.searchedNodesCount = 1;
+                    result.leafNodesCount = hashedCount;
+                    return result;
+                }
+            }
+
+            final Result result = depth <= splitDepth ? new Perft(hashTable).perft(board, depth, type) : split();
+
+            if (hashed) {
+                hashTable.put(board.key(), depth, result.leafNodesCount);
+            }
+            return result;
+        }
+
+        private Result split() {
+            final List<Move> moves = movegen.generateMoves(board);
+            final List<PerftTask> tasks = new ArrayList<>(moves.size());
+            for (Move move : moves) {
+                final Board child = board.copy();
+                child.makeMove(move);
+                tasks.add(new PerftTask(child, depth - 1, type, false));
+            }
+            invokeAll(tasks);
+
+            final Result result = new Result();
+            result.searchedNodesCount = 1;
+            for (int i = 0; i < tasks.size(); i++) {
+                final Result childResult = tasks.get(i).join();
+                result.searchedNodesCount += childResult.searchedNodesCount;
+                result.leafNodesCount += childResult.leafNodesCount;
+                if (root) {
+                    result.nodesPerMove.put(moves.get(i), childResult.leafNodesCount);
+                }
+            }
+            return result;
+        }
+
+    }
+
+}
@@ -3,9 +3,10 @@ package com.kelseyde.calvin.utils;
 import com.kelseyde.calvin.board.Board;
 import com.kelseyde.calvin.board.Move;
 import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+import com.kelseyde.calvin.movegen.MoveList;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,11 +29,11 @@ public class Perft {
      * The results of a Perft (Performance Test) calculation.
      */
     public static class Result {
-        private long searchedNodesCount;
-        private long leafNodesCount;
-        private final Map<Move, Long> nodesPerMove;
+        long searchedNodesCount;
+        long leafNodesCount;
+        final Map<Move, Long> nodesPerMove;
 
-        private Result() {
+        Result() {
              this.nodesPerMove = new HashMap<>();
         }
         /** Gets the number of leaf nodes
@@ -57,6 +58,23 @@ public class Perft {
         }
     }
     
+    private final PerftHashTable hashTable;
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    public Perft() {
+        this(null);
+    }
+
+    /**
+     * Creates a hashed Perft, which caches the leaf node counts of subtrees in the given table to avoid re-walking
+     * transposed positions. The table may be shared with other Perft instances, including across threads.
+     * <br>Note that, since transposed subtrees are skipped, the searched nodes count is lower than for a non-hashed Perft.
+     * @param hashTable The hash table, or null to disable hashing
+     */
+    public Perft(PerftHashTable hashTable) {
+        this.hashTable = hashTable;
+    }
+
     /** Performs a non bulk Perft (Performance Test) calculation.
      * @param board The board to run the performance test on.
      * @param depth The depth to run the performance test to
@@ -76,30 +94,62 @@ public class Perft {
     	if (depth<=0) {
     		throw new IllegalArgumentException("Depth must be greater than 0");
     	}
-        final MoveGenerator movegen = new MoveGenerator();
         final Result result = new Result();
-        result.leafNodesCount = perft(board, movegen, result, depth, depth, type);
+        // Keep one move buffer per ply, and one generation context for the walk, so that move generation does not
+        // allocate during the walk
+        final MoveList[] moveLists = new MoveList[depth + 1];
+        for (int i = 0; i <= depth; i++) {
+            moveLists[i] = new MoveList();
+        }
+        final MoveGenerator.Generation generation = movegen.newGeneration();
+        result.leafNodesCount = perft(board, generation, moveLists, result, depth, depth, type);
         return result;
     }
 
-    private long perft(Board board, MoveGenerator movegen, Result result, int depth, int originalDepth, Type type) {
+    private long perft(Board board, MoveGenerator.Generation generation, MoveList[] moveLists, Result result, int depth, int originalDepth, Type type) {
         result.searchedNodesCount++;
-        final List<Move> moves = movegen.generateMoves(board);
         if (depth == 1 && type == Type.NON_BULK) {
-            return moves.size();
+            // Count the leaf moves without generating them
+            return movegen.countMoves(board, MoveFilter.ALL, generation);
         } else if (depth == 0) {
             return 1;
         }
+        final MoveList moves = moveLists[depth];
+        movegen.generateMoves(board, MoveFilter.ALL, moves, generation);
         long leafNodesCount = 0;
-        for (Move move : moves) {
-            board.makeMove(move);
-            long moveCount = perft(board, movegen, result, depth - 1, originalDepth, type);
+        for (int i = 0; i < moves.size(); i++) {
+            final Move move = moves.move(i);
+            long moveCount = probe(board, move, result, depth - 1);
+            if (moveCount < 0) {
+                board.makeMove(move);
+                moveCount = perft(board, generation, moveLists, result, depth - 1, originalDepth, type);
+                board.unmakeMove();
+            }
             if (depth == originalDepth) {
                 result.nodesPerMove.put(move, moveCount);
             }
             leafNodesCount += moveCount;
-            board.unmakeMove();
+        }
+        final boolean hashed = hashTable != null && depth > 1 && depth != originalDepth;
+        if (hashed) {
+            hashTable.put(board.key(), depth, leafNodesCount);
         }
         return leafNodesCount;
     }
+
+    /**
+     * Looks up the subtree after the given move in the hash table, using the predicted key so that the move does not
+     * need to be made on a hit.
+     * @return the hashed leaf node count, or -1 if hashing is disabled or there is no hit
+     */
+    private long probe(Board board, Move move, Result result, int childDepth) {
+        if (hashTable == null || childDepth <= 1) {
+            return -1;
+        }
+        final long hashedCount = hashTable.get(board.keyAfter(move), childDepth);
+        if (hashedCount >= 0) {
+            result.searchedNodesCount++;
+        }
+        return hashedCount;
+    }
 }
@@ -0,0 +1,93 @@
+package com.kelseyde.calvin.utils;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of perft leaf node counts, keyed on the Zobrist key of a position plus the remaining depth.
+ * Used by {@link Perft} and {@link ParallelPerft} to skip re-walking subtrees of transposed positions.
+ * <p>
+ * The table is a single power-of-two sized {@code long[]}, divided into buckets of two entries: one depth-preferred
+ * entry and one always-replace entry. Each entry is two longs, the packed data (leaf count and depth) and the key
+ * XOR'ed with the data. A reader only accepts an entry if the XOR of the two longs gives back the key, so a torn write
+ * by a concurrent thread simply reads as a miss. This means the table can be shared across threads without locking.
+ *
+ * @see <a href="https://www.chessprogramming.org/Shared_Hash_Table#Lockless">Chess Programming Wiki</a>
+ */
+public class PerftHashTable {
+
+    private static final int ENTRY_SIZE = 2;
+    private static final int BUCKET_SIZE = 2 * ENTRY_SIZE;
+    private static final int BUCKET_BYTES = BUCKET_SIZE * Long.BYTES;
+
+    private static final int DEPTH_BITS = 8;
+    private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+    // Mixes the remaining depth into the key, so that the same position at different depths maps to different buckets
+    private static final long DEPTH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final long[] table;
+    private final int mask;
+
+    /**
+     * @param sizeMb The size of the table in megabytes. The number of buckets is rounded down to a power of two.
+     */
+    public PerftHashTable(int sizeMb) {
+        if (sizeMb <= 0) {
+            throw new IllegalArgumentException("Size must be greater than 0");
+        }
+        final long buckets = Long.highestOneBit((long) sizeMb * 1024 * 1024 / BUCKET_BYTES);
+        final int maxBuckets = Integer.highestOneBit(Integer.MAX_VALUE / BUCKET_SIZE);
+        final int bucketCount = (int) Math.min(buckets, maxBuckets);
+        this.table = new long[bucketCount * BUCKET_SIZE];
+        this.mask = bucketCount - 1;
+    }
+
+    /**
+     * Looks up the leaf node count of the given position at the given remaining depth.
+     * @return the leaf node count, or -1 if the position is not in the table
+     */
+    public long get(long key, int depth) {
+        final long hash = hash(key, depth);
+        final int index = index(hash);
+        for (int i = index; i < index + BUCKET_SIZE; i += ENTRY_SIZE) {
+            final long data = table[i + 1];
+            if ((table[i] ^ data) == hash && (data & DEPTH_MASK) == depth) {
+                return data >>> DEPTH_BITS;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores the leaf node count of the given position at the given remaining depth.
+     */
+    public void put(long key, int depth, long count) {
+        final long hash = hash(key, depth);
+        final int index = index(hash);
+        final long data = (count << DEPTH_BITS) | depth;
+        // Keep the deepest entry in the first slot, since it saves the most work; everything else goes in the second
+        final int slot = depth >= (table[index + 1] & DEPTH_MASK) ? index : index + ENTRY_SIZE;
+        table[slot] = hash ^ data;
+        table[slot + 1] = data;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * @return the size of the table in bytes
+     */
+    public long size() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    private long hash(long key, int depth) {
+        return key ^ (depth * DEPTH_MULTIPLIER);
+    }
+
+    private int index(long hash) {
+        return ((int) hash & mask) * BUCKET_SIZE;
+    }
+
+}
@@ -87,14 +87,15 @@ public class FEN {
             board.setKings(king);
             board.setWhitePieces(whitePieces);
             board.setBlackPieces(blackPieces);
-            board.setPieces(calculatePieceList(board));
+            board.setMailbox(calculateMailbox(board));
             board.setWhite(whiteToMove);
-            board.getState().setRights(castlingRights);
-            board.getState().setEnPassantFile(enPassantFile);
-            board.getState().setHalfMoveClock(fiftyMoveCounter);
-            board.getState().setKey(Key.generateKey(board));
-            board.getState().setPawnKey(Key.generatePawnKey(board));
-            board.getState().setNonPawnKeys(Key.generateNonPawnKeys(board));
+            board.setRights(castlingRights);
+            board.setEnPassantFile(enPassantFile);
+            board.setHalfMoveClock(fiftyMoveCounter);
+            board.setKey(Key.generateKey(board));
+            board.setPawnKey(Key.generatePawnKey(board));
+            board.setNonPawnKeys(Key.generateNonPawnKeys(board));
+            board.setMaterialKey(Key.generateMaterialKey(board));
 
             return board;
 
@@ -108,16 +109,14 @@ public class FEN {
                 int emptySquares = 0;
                 for (int file = 0; file < 8; file++) {
                     int square = Square.of(rank, file);
-                    Piece piece = board.pieceAt(square);
-                    if (piece != null) {
+                    byte piece = board.colouredPieceAt(square);
+                    if (piece != Piece.NONE) {
                         if (emptySquares != 0) {
                             sb.append(emptySquares);
                             emptySquares = 0;
                         }
-                        long squareBB = Bits.of(square);
-                        boolean white = (board.getWhitePieces() & squareBB) != 0;
-                        String pieceCode = piece.code();
-                        if (white) pieceCode = pieceCode.toUpperCase();
+                        String pieceCode = Piece.type(piece).code();
+                        if (Piece.isWhite(piece)) pieceCode = pieceCode.toUpperCase();
                         sb.append(pieceCode);
                     } else {
                         emptySquares++;
@@ -134,13 +133,13 @@ public class FEN {
             String whiteToMove = toSideToMove(board.isWhite());
             sb.append(" ").append(whiteToMove);
 
-            String castlingRights = toCastlingRights(board, board.getState().getRights());
+            String castlingRights = toCastlingRights(board, board.rights());
             sb.append(" ").append(castlingRights);
 
-            String enPassantSquare = toEnPassantSquare(board.getState().getEnPassantFile(), board.isWhite());
+            String enPassantSquare = toEnPassantSquare(board.enPassantFile(), board.isWhite());
             sb.append(" ").append(enPassantSquare);
 
-            String fiftyMoveCounter = toFiftyMoveCounter(board.getState().getHalfMoveClock());
+            String fiftyMoveCounter = toFiftyMoveCounter(board.halfMoveClock());
             sb.append(" ").append(fiftyMoveCounter);
 
             String fullMoveNumber = toFullMoveCounter(board.getPly());
@@ -278,17 +277,39 @@ public class FEN {
         return isLetter ? Stream.of(square) : IntStream.range(0, Integer.parseInt(square)).mapToObj(i -> "x");
     }
 
+    /**
+     * @deprecated the board now stores coloured piece codes, see {@link #calculateMailbox(Board)}.
+     */
+    @Deprecated
     public static Piece[] calculatePieceList(Board board) {
 
+        byte[] mailbox = calculateMailbox(board);
         Piece[] pieceList = new Piece[Square.COUNT];
+        for (int square = 0; square < Square.COUNT; square++) {
+            pieceList[square] = Piece.type(mailbox[square]);
+        }
+        return pieceList;
+
+    }
+
+    /**
+     * Builds the mailbox for the board from its bitboards, holding the coloured piece code on each square (see
+     * {@link Piece#coloured(Piece, boolean)}).
+     */
+    public static byte[] calculateMailbox(Board board) {
+
+        byte[] pieceList = new byte[Square.COUNT];
         for (int square = 0; square < Square.COUNT; square++) {
             long squareMask = Bits.of(square);
-            if ((squareMask & board.getPawns()) != 0)           pieceList[square] = Piece.PAWN;
-            else if ((squareMask & board.getKnights()) != 0)    pieceList[square] = Piece.KNIGHT;
-            else if ((squareMask & board.getBishops()) != 0)    pieceList[square] = Piece.BISHOP;
-            else if ((squareMask & board.getRooks()) != 0)      pieceList[square] = Piece.ROOK;
-            else if ((squareMask & board.getQueens()) != 0)     pieceList[square] = Piece.QUEEN;
-            else if ((squareMask & board.getKings()) != 0)      pieceList[square] = Piece.KING;
+            boolean white = (squareMask & board.getWhitePieces()) != 0;
+            Piece piece = null;
+            if ((squareMask & board.getPawns()) != 0)           piece = Piece.PAWN;
+            else if ((squareMask & board.getKnights()) != 0)    piece = Piece.KNIGHT;
+            else if ((squareMask & board.getBishops()) != 0)    piece = Piece.BISHOP;
+            else if ((squareMask & board.getRooks()) != 0)      piece = Piece.ROOK;
+            else if ((squareMask & board.getQueens()) != 0)     piece = Piece.QUEEN;
+            else if ((squareMask & board.getKings()) != 0)      piece = Piece.KING;
+            pieceList[square] = Piece.coloured(piece, white);
         }
         return pieceList;
 
@@ -7,6 +7,8 @@ import java.util.List;
 
 public class SAN {
 
+    private static final MoveGenerator MOVE_GENERATOR = new MoveGenerator();
+
     /**
      * Convert move to Standard Algebraic Notation (SAN)
      * Note: the move must not yet have been made on the board
@@ -20,7 +22,6 @@ public class SAN {
             return delta == 2 ? "O-O" : "O-O-O";
         }
 
-        MoveGenerator moveGenerator = new MoveGenerator();
         String notation = "";
         if (piece != Piece.PAWN) {
             notation += piece.code().toUpperCase();
@@ -28,7 +29,7 @@ public class SAN {
 
         // Check if any ambiguity exists in notation (e.g. if e2 can be reached via Nfe2 and Nbe2)
         if (piece != Piece.PAWN && piece != Piece.KING) {
-            List<Move> legalMoves = moveGenerator.generateMoves(board);
+            List<Move> legalMoves = MOVE_GENERATOR.generateMoves(board);
 
             for (Move legalMove : legalMoves) {
 
@@ -77,9 +78,8 @@ public class SAN {
         }
 
         board.makeMove(move);
-        if (moveGenerator.isCheck(board, board.isWhite())) {
-            List<Move> legalMoves = moveGenerator.generateMoves(board);
-            notation += legalMoves.isEmpty() ? "#" : "+";
+        if (MOVE_GENERATOR.isCheck(board, board.isWhite())) {
+            notation += MOVE_GENERATOR.hasLegalMove(board) ? "+" : "#";
         }
         board.unmakeMove();
 
@@ -0,0 +1,93 @@
+package com.kelseyde.calvin.board;
+
+import com.kelseyde.calvin.movegen.MoveGenerator;
+import com.kelseyde.calvin.movegen.MoveList;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class BoardStackTest {
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testPerftMatchesSuite() throws IOException {
+
+        List<String> lines = Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd"));
+        for (String line : lines.subList(0, 20)) {
+            String[] parts = line.split(";");
+            long expected = Long.parseLong(parts[3].trim().split(" ")[1]);
+            BoardStack stack = new BoardStack(FEN.toBoard(parts[0]), 3);
+            Assertions.assertEquals(expected, perft(stack, 3), parts[0]);
+            Assertions.assertEquals(0, stack.depth());
+        }
+
+    }
+
+    @Test
+    public void testPushMatchesMakeMove() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        BoardStack stack = new BoardStack(board, 1);
+        for (Move move : movegen.generateMoves(board)) {
+            board.makeMove(move);
+            Assertions.assertTrue(stack.push(move));
+            Board pushed = stack.current();
+            Assertions.assertEquals(FEN.toFEN(board), FEN.toFEN(pushed));
+            Assertions.assertEquals(board.key(), pushed.key());
+            Assertions.assertEquals(board.pawnKey(), pushed.pawnKey());
+            Assertions.assertEquals(board.nonPawnKey(true), pushed.nonPawnKey(true));
+            Assertions.assertEquals(board.nonPawnKey(false), pushed.nonPawnKey(false));
+            Assertions.assertEquals(board.captured(), pushed.captured());
+            stack.pop();
+            board.unmakeMove();
+        }
+
+    }
+
+    @Test
+    public void testRootIsNotModified() {
+
+        Board board = Board.from(FEN.STARTPOS);
+        BoardStack stack = new BoardStack(board, 2);
+        stack.push(Move.fromUCI("e2e4", Move.PAWN_DOUBLE_MOVE_FLAG));
+        stack.push(Move.fromUCI("e7e5", Move.PAWN_DOUBLE_MOVE_FLAG));
+        Assertions.assertEquals(FEN.STARTPOS, FEN.toFEN(board));
+        Assertions.assertEquals(2, stack.depth());
+
+    }
+
+    @Test
+    public void testBounds() {
+
+        BoardStack stack = new BoardStack(Board.from(FEN.STARTPOS), 1);
+        Assertions.assertThrows(IllegalStateException.class, stack::pop);
+        Assertions.assertFalse(stack.push(Move.fromUCI("e3e4")));
+        Assertions.assertEquals(0, stack.depth());
+        Assertions.assertTrue(stack.push(Move.fromUCI("g1f3")));
+        Assertions.assertThrows(IllegalStateException.class, () -> stack.push(Move.fromUCI("g8f6")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BoardStack(Board.from(FEN.STARTPOS), -1));
+
+    }
+
+    private long perft(BoardStack stack, int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = new MoveList();
+        movegen.generateMoves(stack.current(), moves);
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            stack.push(moves.move(i));
+            nodes += perft(stack, depth - 1);
+            stack.pop();
+        }
+        return nodes;
+    }
+
+}
@@ -285,6 +285,112 @@ public class BoardTest {
 
     }
 
+    @Test
+    public void testUnmakeMoveRestoresKeys() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        BoardState initialState = board.getState();
+        long[] initialNonPawnKeys = board.nonPawnKeys();
+
+        board.makeMove(Move.fromUCI("e1g1", Move.CASTLE_FLAG));
+        board.makeMove(Move.fromUCI("a6e2"));
+        board.makeMove(Move.fromUCI("d5e6"));
+        Assertions.assertEquals(Piece.BISHOP, board.getStates()[2].getCaptured());
+        Assertions.assertEquals(Piece.PAWN, board.captured());
+
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+
+        Assertions.assertEquals(initialState, board.getState());
+        Assertions.assertEquals(initialNonPawnKeys[Colour.WHITE], board.nonPawnKey(true));
+        Assertions.assertEquals(initialNonPawnKeys[Colour.BLACK], board.nonPawnKey(false));
+        Assertions.assertEquals(0, board.getPly());
+
+    }
+
+    @Test
+    public void testCopyPreservesHistory() {
+
+        Board board = Board.from(FEN.STARTPOS);
+        board.makeMove(Move.fromUCI("g1f3"));
+        board.makeMove(Move.fromUCI("g8f6"));
+
+        Board copy = board.copy();
+        Assertions.assertEquals(board.getPly(), copy.getPly());
+        Assertions.assertEquals(board.getState(), copy.getState());
+
+        copy.unmakeMove();
+        copy.unmakeMove();
+        Assertions.assertEquals(Board.from(FEN.STARTPOS).key(), copy.key());
+        Assertions.assertEquals(2, board.getPly());
+
+    }
+
+    @Test
+    public void testCopiesDivergeIndependently() {
+
+        Board board = Board.from(FEN.STARTPOS);
+        board.makeMove(Move.fromUCI("g1f3"));
+        board.makeMove(Move.fromUCI("g8f6"));
+        long key = board.key();
+
+        Board copy = board.copy();
+        copy.makeMove(Move.fromUCI("b1c3"));
+        board.unmakeMove();
+        board.makeMove(Move.fromUCI("b8c6"));
+
+        // Neither board's writes are visible in the other's history
+        Assertions.assertEquals(Move.fromUCI("g8f6"), copy.getMoves()[1]);
+        Assertions.assertEquals(Move.fromUCI("b8c6"), board.getMoves()[1]);
+        copy.unmakeMove();
+        Assertions.assertEquals(key, copy.key());
+        Assertions.assertTrue(Draw.isDoubleRepetition(playKnightsOut(copy)));
+        for (int i = 0; i < 6; i++) {
+            copy.unmakeMove();
+        }
+        Assertions.assertEquals(Board.from(FEN.STARTPOS).key(), copy.key());
+
+        Board copyOfCopy = copy.copy();
+        copyOfCopy.makeMove(Move.fromUCI("e2e4", Move.PAWN_DOUBLE_MOVE_FLAG));
+        Assertions.assertEquals(0, copy.getPly());
+        Assertions.assertEquals(FEN.STARTPOS, FEN.toFEN(copy));
+        Assertions.assertEquals(2, board.getPly());
+
+    }
+
+    @Test
+    public void testCopyGrowsPastCopiedHistory() {
+
+        // Copy well past the initial capacity, then play on the copy past the headroom it was given
+        Board board = Board.from(FEN.STARTPOS);
+        board.makeMove(Move.fromUCI("g1f3"));
+        board.makeMove(Move.fromUCI("g8f6"));
+        for (int i = 0; i < 87; i++) {
+            playKnightsOut(board);
+        }
+        Board copy = board.copy();
+        for (int i = 0; i < 50; i++) {
+            playKnightsOut(copy);
+        }
+        Assertions.assertEquals(board.key(), copy.key());
+        for (int i = 0; i < 550; i++) {
+            copy.unmakeMove();
+        }
+        Assertions.assertEquals(Board.from(FEN.STARTPOS).key(), copy.key());
+        Assertions.assertEquals(0, copy.getPly());
+        Assertions.assertEquals(350, board.getPly());
+
+    }
+
+    private Board playKnightsOut(Board board) {
+        board.makeMove(Move.fromUCI("f3g1"));
+        board.makeMove(Move.fromUCI("f6g8"));
+        board.makeMove(Move.fromUCI("g1f3"));
+        board.makeMove(Move.fromUCI("g8f6"));
+        return board;
+    }
+
     @Test
     public void testMakeTooManyMoves() {
         Board board = Board.from(FEN.STARTPOS);
@@ -296,6 +402,114 @@ public class BoardTest {
         }
     }
 
+    @Test
+    public void testColouredMailboxMatchesBitboards() {
+
+        // Covers castling, en passant, promotion and capture-promotion, plus unmaking each of them
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MoveGenerator movegen = new MoveGenerator();
+        assertMailboxMatchesBitboards(board);
+        for (Move move : movegen.generateMoves(board)) {
+            board.makeMove(move);
+            assertMailboxMatchesBitboards(board);
+            for (Move reply : movegen.generateMoves(board)) {
+                board.makeMove(reply);
+                assertMailboxMatchesBitboards(board);
+                board.unmakeMove();
+            }
+            board.unmakeMove();
+            assertMailboxMatchesBitboards(board);
+        }
+
+        board = Board.from("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        for (Move move : movegen.generateMoves(board)) {
+            board.makeMove(move);
+            assertMailboxMatchesBitboards(board);
+            board.unmakeMove();
+        }
+        Assertions.assertEquals(Piece.coloured(Piece.PAWN, false), board.colouredPieceAt(Square.fromNotation("b2")));
+        Assertions.assertEquals(Piece.coloured(Piece.KING, true), board.colouredPieceAt(Square.fromNotation("g1")));
+        Assertions.assertEquals(Piece.NONE, board.colouredPieceAt(Square.fromNotation("e2")));
+
+    }
+
+    @Test
+    public void testStateViewsWriteThrough() {
+
+        Board board = Board.from(FEN.STARTPOS);
+        board.makeMove(Move.fromUCI("g1f3"));
+        board.makeMove(Move.fromUCI("g8f6"));
+
+        board.getState().setHalfMoveClock(10);
+        Assertions.assertEquals(10, board.halfMoveClock());
+        BoardState copy = board.getState().copy();
+        copy.setHalfMoveClock(20);
+        Assertions.assertEquals(10, board.halfMoveClock());
+
+        BoardState[] states = board.getStates();
+        Assertions.assertTrue(states.length > board.getPly());
+        Assertions.assertNotNull(states[board.getPly() - 1]);
+        Assertions.assertNull(states[board.getPly()]);
+        states[0].setHalfMoveClock(5);
+        board.unmakeMove();
+        board.unmakeMove();
+        Assertions.assertEquals(5, board.halfMoveClock());
+
+        long[] keys = board.keyHistory();
+        Assertions.assertEquals(board.getPly() + 1, keys.length);
+        Assertions.assertEquals(board.key(), keys[board.getPly()]);
+        keys[0] = ~board.key();
+        Assertions.assertEquals(board.key(), board.keyHistory()[0]);
+
+    }
+
+    @Test
+    public void testSetStateWithoutMaterialKey() {
+
+        Board board = Board.from("8/8/4k3/8/8/3NK3/8/8 w - - 0 1");
+        long materialKey = board.materialKey();
+        BoardState state = new BoardState(board.key(), board.pawnKey(), board.nonPawnKeys(), null,
+                board.enPassantFile(), board.rights(), board.halfMoveClock());
+        Assertions.assertEquals(0L, state.getMaterialKey());
+
+        board.setMaterialKey(0L);
+        board.setState(state);
+        Assertions.assertEquals(materialKey, board.materialKey());
+        Assertions.assertTrue(Draw.isInsufficientMaterial(board));
+
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testDeprecatedPieceArrayAdapters() {
+
+        Board board = Board.from("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1");
+        byte[] mailbox = board.getMailbox().clone();
+        Piece[] pieces = board.getPieces();
+        Assertions.assertArrayEquals(pieces, FEN.calculatePieceList(board));
+        Assertions.assertEquals(Piece.PAWN, pieces[Square.fromNotation("b2")]);
+        Assertions.assertNull(pieces[Square.fromNotation("e2")]);
+
+        board.setPieces(pieces);
+        Assertions.assertArrayEquals(mailbox, board.getMailbox());
+        assertMailboxMatchesBitboards(board);
+
+    }
+
+    private void assertMailboxMatchesBitboards(Board board) {
+        for (int square = 0; square < Square.COUNT; square++) {
+            byte coloured = board.colouredPieceAt(square);
+            Piece piece = board.pieceAt(square);
+            Assertions.assertEquals(piece, Piece.type(coloured));
+            if (piece == null) {
+                Assertions.assertFalse(Bits.contains(board.getOccupied(), square));
+            } else {
+                boolean white = Piece.isWhite(coloured);
+                Assertions.assertTrue(Bits.contains(board.getPieces(piece, white), square));
+            }
+        }
+    }
+
     private Set<Integer> getPiecePositions(Board board, boolean whiteToMove) {
         Set<Integer> positions = new HashSet<>();
         if (whiteToMove) {
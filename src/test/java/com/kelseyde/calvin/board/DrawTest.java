@@ -158,6 +158,30 @@ class DrawTest {
         assertTrue(Draw.isDraw(board, mg));
     }
     
+    @Test
+    void testUpcomingRepetition() {
+        // Black can play Ng8, repeating the starting position
+        Board board = build(FEN.STARTPOS, "g1f3 g8f6 f3g1".split(" "));
+        assertTrue(Draw.hasUpcomingRepetition(board, 4));
+        // ...but before the search root the starting position must already have been repeated
+        assertFalse(Draw.hasUpcomingRepetition(board));
+        board = build(FEN.STARTPOS, "g1f3 g8f6 f3g1 f6g8 g1f3 g8f6 f3g1".split(" "));
+        assertTrue(Draw.hasUpcomingRepetition(board));
+
+        // White's rook can return from h3 to h1 in one move, while black's king has walked round a square
+        String[] moves = "a8b8 h1g1 b8b7 g1g3 b7a7 g3h3 a7a8".split(" ");
+        board = build("k7/8/8/8/8/8/8/K6R b - - 0 1", moves);
+        assertTrue(Draw.hasUpcomingRepetition(board, 8));
+        assertFalse(Draw.hasUpcomingRepetition(board, 0));
+        // ...unless there is a piece in the way
+        board = build("k7/8/8/8/8/8/7P/K6R b - - 0 1", moves);
+        assertFalse(Draw.hasUpcomingRepetition(board, 8));
+
+        // A pawn move is irreversible
+        board = build(FEN.STARTPOS, "g1f3 g8f6 f3g1 e7e6".split(" "));
+        assertFalse(Draw.hasUpcomingRepetition(board, 8));
+    }
+
     private Board build(String fen, String[] moves) {
         final Board board = Board.from(fen);
         Arrays.stream(moves).forEach(m -> play(board, m));
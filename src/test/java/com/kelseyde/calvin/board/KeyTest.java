@@ -1,10 +1,15 @@
 package com.kelseyde.calvin.board;
 
+import com.kelseyde.calvin.movegen.MoveGenerator;
 import com.kelseyde.calvin.utils.notation.FEN;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.stream.Stream;
 
 public class KeyTest {
@@ -324,4 +329,56 @@ public class KeyTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testKeyAfterMatchesMakeMove() throws IOException {
+
+        assertKeyAfterSuite("src/test/resources/perft_suite.epd", ChessVariant.STANDARD);
+
+    }
+
+    @Test
+    public void testKeyAfterMatchesMakeMoveChess960() throws IOException {
+
+        assertKeyAfterSuite("src/test/resources/perft_chess960_suite.epd", ChessVariant.CHESS960);
+
+    }
+
+    @Test
+    public void testMaterialKeyCountsPieces() {
+
+        Board board1 = Board.from("4k3/8/8/8/8/8/8/2B1KB2 w - - 0 1");
+        Board board2 = Board.from("4k3/8/8/8/8/8/8/4K1BB w - - 0 1");
+        Board board3 = Board.from("4k3/8/8/8/8/8/8/3BK3 w - - 0 1");
+        Assertions.assertEquals(board1.materialKey(), board2.materialKey());
+        Assertions.assertNotEquals(board1.materialKey(), board3.materialKey());
+
+    }
+
+    private void assertKeyAfterSuite(String path, ChessVariant variant) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(path));
+        MoveGenerator movegen = new MoveGenerator();
+        for (String line : lines) {
+            String fen = line.split(";")[0].trim();
+            Board board = FEN.toBoard(fen);
+            board.setVariant(variant);
+            assertKeyAfter(board, movegen, 2, fen);
+        }
+    }
+
+    private void assertKeyAfter(Board board, MoveGenerator movegen, int depth, String fen) {
+        if (depth == 0) {
+            return;
+        }
+        for (Move move : movegen.generateMoves(board)) {
+            long keyAfter = board.keyAfter(move);
+            long pawnKeyAfter = board.pawnKeyAfter(move);
+            board.makeMove(move);
+            Assertions.assertEquals(board.key(), keyAfter, fen + " " + Move.toUCI(move));
+            Assertions.assertEquals(board.pawnKey(), pawnKeyAfter, fen + " " + Move.toUCI(move));
+            Assertions.assertEquals(Key.generateMaterialKey(board), board.materialKey(), fen + " " + Move.toUCI(move));
+            assertKeyAfter(board, movegen, depth - 1, fen);
+            board.unmakeMove();
+        }
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Square;
+import com.kelseyde.calvin.utils.MagicFinder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Random;
+
+public class AttacksTest {
+
+    @Test
+    public void testSoftwareCompress() {
+        Assertions.assertEquals(0b101L, Pext.softwareCompress(0b1_0000_0001L, 0b1_0001_0001L));
+        Assertions.assertEquals(0L, Pext.softwareCompress(-1L, 0L));
+        Assertions.assertEquals(-1L, Pext.softwareCompress(-1L, -1L));
+
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            long value = random.nextLong();
+            long mask = random.nextLong() & random.nextLong();
+            long expected = 0L;
+            int bit = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                if ((mask & 1L << sq) != 0) {
+                    expected |= (value >>> sq & 1L) << bit++;
+                }
+            }
+            Assertions.assertEquals(expected, Pext.softwareCompress(value, mask));
+            Assertions.assertEquals(expected, Pext.compress(value, mask));
+        }
+    }
+
+    @Test
+    public void testMagicAttacksMatchRayAttacksForEveryOccupancy() {
+        for (int square = 0; square < Square.COUNT; square++) {
+            for (long occupied : Attacks.initBlockerMasks(Attacks.ROOK_MASKS[square])) {
+                Assertions.assertEquals(Attacks.initAttackMask(square, occupied, true),
+                        Attacks.rookAttacks(square, occupied));
+            }
+            for (long occupied : Attacks.initBlockerMasks(Attacks.BISHOP_MASKS[square])) {
+                Assertions.assertEquals(Attacks.initAttackMask(square, occupied, false),
+                        Attacks.bishopAttacks(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    public void testPrecomputedTablesMatchComputedTables() {
+        Assertions.assertNotNull(AttackTables.class.getResource(AttackTables.RESOURCE));
+        int[] bishopOffsets = new int[Square.COUNT];
+        Assertions.assertArrayEquals(Attacks.initSliderAttacks(bishopOffsets), AttackTables.SLIDER_ATTACKS);
+        Assertions.assertArrayEquals(bishopOffsets, AttackTables.BISHOP_OFFSETS);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testLegacyTablesMatchSliderAttacks() {
+        for (int square = 0; square < Square.COUNT; square++) {
+            for (long occupied : Attacks.initBlockerMasks(Attacks.ROOK_MASKS[square])) {
+                Assertions.assertEquals(Attacks.rookAttacks(square, occupied),
+                        Attacks.sliderAttacks(square, occupied, Attacks.LegacyTables.ROOK_MAGIC_LOOKUP));
+            }
+            for (long occupied : Attacks.initBlockerMasks(Attacks.BISHOP_MASKS[square])) {
+                Assertions.assertEquals(Attacks.bishopAttacks(square, occupied),
+                        Attacks.sliderAttacks(square, occupied, Attacks.LegacyTables.BISHOP_MAGIC_LOOKUP));
+            }
+        }
+    }
+
+    @Test
+    public void testAnyInitialisationOrder() throws Exception {
+        for (String first : new String[] {"AttackTables", "Attacks", "MagicAttacks", "SliderAttacks"}) {
+            // Load the main classes afresh, so that the named class is the first of them to be initialised
+            URL classes = Attacks.class.getProtectionDomain().getCodeSource().getLocation();
+            try (URLClassLoader loader = new URLClassLoader(new URL[] {classes}, ClassLoader.getPlatformClassLoader())) {
+                Class.forName("com.kelseyde.calvin.movegen." + first, true, loader);
+                Class<?> attacks = Class.forName("com.kelseyde.calvin.movegen.Attacks", true, loader);
+                Method rookAttacks = attacks.getMethod("rookAttacks", int.class, long.class);
+                Method bishopAttacks = attacks.getMethod("bishopAttacks", int.class, long.class);
+                for (int square = 0; square < Square.COUNT; square++) {
+                    Assertions.assertEquals(Attacks.rookAttacks(square, 0L), rookAttacks.invoke(null, square, 0L), first);
+                    Assertions.assertEquals(Attacks.bishopAttacks(square, 0L), bishopAttacks.invoke(null, square, 0L), first);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRookLineMagics() {
+        for (int square = 0; square < Square.COUNT; square++) {
+            Assertions.assertTrue(MagicFinder.isMagic(square, true, Attacks.ROOK_FILE_MAGICS[square]));
+            Assertions.assertTrue(MagicFinder.isMagic(square, false, Attacks.ROOK_RANK_MAGICS[square]));
+            Assertions.assertEquals(Attacks.ROOK_MASKS[square], Attacks.ROOK_FILE_MASKS[square] | Attacks.ROOK_RANK_MASKS[square]);
+        }
+        long magic = MagicFinder.findMagic(Square.fromNotation("d4"), true, new Random(1));
+        Assertions.assertTrue(MagicFinder.isMagic(Square.fromNotation("d4"), true, magic));
+        Assertions.assertFalse(MagicFinder.isMagic(Square.fromNotation("d4"), true, 0L));
+    }
+
+    @Test
+    public void testSliderAttacksMatchRayAttacks() {
+        String[] names = {"magic", "pext", "hyperbola", "koggestone", "classical"};
+        Random random = new Random(0);
+        for (String name : names) {
+            SliderAttacks sliders = SliderAttacks.of(name);
+            for (int i = 0; i < 2000; i++) {
+                // Sparse, dense and empty boards
+                long occupied = i == 0 ? 0L : random.nextLong() & (i % 2 == 0 ? random.nextLong() : -1L);
+                for (int square = 0; square < Square.COUNT; square++) {
+                    Assertions.assertEquals(Attacks.initAttackMask(square, occupied, true),
+                            sliders.rookAttacks(square, occupied), name);
+                    Assertions.assertEquals(Attacks.initAttackMask(square, occupied, false),
+                            sliders.bishopAttacks(square, occupied), name);
+                }
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SliderAttacks.of("rotated"));
+    }
+
+    @Test
+    public void testPextTablesMatchMagicTables() {
+        int[] rookOffsets = new int[Square.COUNT];
+        int[] bishopOffsets = new int[Square.COUNT];
+        long[] pextAttacks = Attacks.initPextAttacks(rookOffsets, bishopOffsets);
+
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int square = 0; square < Square.COUNT; square++) {
+                long rook = pextAttacks[rookOffsets[square] + (int) Pext.compress(occupied, Attacks.ROOK_MASKS[square])];
+                long bishop = pextAttacks[bishopOffsets[square] + (int) Pext.compress(occupied, Attacks.BISHOP_MASKS[square])];
+                Assertions.assertEquals(Attacks.rookAttacks(square, occupied), rook);
+                Assertions.assertEquals(Attacks.bishopAttacks(square, occupied), bishop);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.ChessVariant;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class CountMovesTest {
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testCountMatchesGenerationPerftSuite() throws IOException {
+        testSuite(Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd")), ChessVariant.STANDARD);
+    }
+
+    @Test
+    public void testCountMatchesGenerationChess960PerftSuite() throws IOException {
+        testSuite(Files.readAllLines(Paths.get("src/test/resources/perft_chess960_suite.epd")), ChessVariant.CHESS960);
+    }
+
+    @Test
+    public void testCountInCheck() {
+        // Pinned pawns, check evasions by block and capture, and en passant out of check
+        assertCounts(Board.from("8/8/3p4/1Pp4r/1K5k/8/4P1P1/8 w - c6 0 3"));
+        assertCounts(Board.from("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1"));
+        assertCounts(Board.from("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1"));
+    }
+
+    @Test
+    public void testReusedGenerationMatchesFreshGeneration() throws IOException {
+        MoveGenerator.Generation generation = movegen.newGeneration();
+        MoveList moves = new MoveList();
+        for (String line : Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd"))) {
+            Board board = FEN.toBoard(line.split(";")[0]);
+            String fen = FEN.toFEN(board);
+            for (MoveFilter filter : MoveFilter.values()) {
+                // Stop a generation early, so that the next one must reset the context
+                movegen.generateMoves(board, filter, move -> false, generation);
+                movegen.generateMoves(board, filter, moves, generation);
+                Assertions.assertEquals(movegen.generateMoves(board, filter), moves.toList(), fen);
+                Assertions.assertEquals(movegen.countMoves(board, filter), movegen.countMoves(board, filter, generation), fen);
+            }
+            Assertions.assertEquals(movegen.hasLegalMove(board), movegen.hasLegalMove(board, generation), fen);
+            Assertions.assertEquals(movegen.status(board), movegen.status(board, generation), fen);
+        }
+    }
+
+    private void testSuite(List<String> lines, ChessVariant variant) {
+        for (String line : lines) {
+            Board board = FEN.toBoard(line.split(";")[0]);
+            board.setVariant(variant);
+            assertCounts(board);
+            for (Move move : movegen.generateMoves(board)) {
+                board.makeMove(move);
+                assertCounts(board);
+                board.unmakeMove();
+            }
+        }
+    }
+
+    private void assertCounts(Board board) {
+        for (MoveFilter filter : MoveFilter.values()) {
+            Assertions.assertEquals(movegen.generateMoves(board, filter).size(), movegen.countMoves(board, filter),
+                    String.format("Fen: %s, Filter: %s", FEN.toFEN(board), filter));
+        }
+    }
+
+}
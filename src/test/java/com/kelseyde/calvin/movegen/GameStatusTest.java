@@ -0,0 +1,100 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.utils.TestUtils;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class GameStatusTest {
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testHasLegalMoveMatchesGenerateMoves() throws IOException {
+
+        List<String> lines = Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd"));
+        for (String line : lines) {
+            String fen = line.split(";")[0].trim();
+            assertHasLegalMove(FEN.toBoard(fen), 2, fen);
+        }
+
+    }
+
+    @Test
+    public void testCheckmate() {
+
+        Board board = Board.from("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        Assertions.assertFalse(movegen.hasLegalMove(board));
+        Assertions.assertEquals(GameStatus.CHECKMATE, movegen.status(board));
+
+        // Checkmate takes precedence over the fifty-move rule
+        board = Board.from("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 100 60");
+        Assertions.assertEquals(GameStatus.CHECKMATE, movegen.status(board));
+
+    }
+
+    @Test
+    public void testStalemate() {
+
+        Board board = Board.from("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1");
+        Assertions.assertFalse(movegen.hasLegalMove(board));
+        Assertions.assertEquals(GameStatus.STALEMATE, movegen.status(board));
+
+        // The only legal move is a pawn push, which must not be missed
+        board = Board.from("7k/5Q2/6K1/8/8/8/p7/8 b - - 0 1");
+        Assertions.assertTrue(movegen.hasLegalMove(board));
+        Assertions.assertEquals(GameStatus.ONGOING, movegen.status(board));
+
+    }
+
+    @Test
+    public void testDraws() {
+
+        Assertions.assertEquals(GameStatus.FIFTY_MOVE,
+                movegen.status(Board.from("4k3/8/8/8/8/8/4P3/R3K3 w - - 100 80")));
+        Assertions.assertEquals(GameStatus.INSUFFICIENT,
+                movegen.status(Board.from("4k3/8/8/8/8/8/8/2B1K3 w - - 0 1")));
+
+        Board board = Board.from(FEN.STARTPOS);
+        for (int i = 0; i < 2; i++) {
+            board.makeMove(TestUtils.getLegalMove(board, "g1", "f3"));
+            board.makeMove(TestUtils.getLegalMove(board, "g8", "f6"));
+            board.makeMove(TestUtils.getLegalMove(board, "f3", "g1"));
+            board.makeMove(TestUtils.getLegalMove(board, "f6", "g8"));
+        }
+        Assertions.assertEquals(GameStatus.REPETITION, movegen.status(board));
+        Assertions.assertTrue(GameStatus.REPETITION.isDraw());
+
+    }
+
+    @Test
+    public void testOngoing() {
+
+        Board board = Board.from(FEN.STARTPOS);
+        Assertions.assertTrue(movegen.hasLegalMove(board));
+        Assertions.assertEquals(GameStatus.ONGOING, movegen.status(board));
+        Assertions.assertFalse(GameStatus.ONGOING.isOver());
+
+    }
+
+    private void assertHasLegalMove(Board board, int depth, String fen) {
+        List<Move> moves = movegen.generateMoves(board);
+        Assertions.assertEquals(!moves.isEmpty(), movegen.hasLegalMove(board), fen);
+        if (depth == 0) {
+            return;
+        }
+        for (Move move : moves) {
+            board.makeMove(move);
+            assertHasLegalMove(board, depth - 1, fen);
+            board.unmakeMove();
+        }
+    }
+
+}
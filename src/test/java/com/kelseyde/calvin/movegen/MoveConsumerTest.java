@@ -0,0 +1,49 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MoveConsumerTest {
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testConsumerReceivesAllMoves() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        List<Move> moves = new ArrayList<>();
+        boolean completed = movegen.generateMoves(board, MoveFilter.ALL, move -> moves.add(new Move(move)));
+        Assertions.assertTrue(completed);
+        Assertions.assertEquals(movegen.generateMoves(board), moves);
+
+    }
+
+    @Test
+    public void testConsumerStopsEarly() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] count = new int[1];
+        boolean completed = movegen.generateMoves(board, MoveFilter.ALL, move -> ++count[0] < 3);
+        Assertions.assertFalse(completed);
+        Assertions.assertEquals(3, count[0]);
+
+        // The board is left intact after stopping early
+        Assertions.assertEquals(48, movegen.generateMoves(board).size());
+
+    }
+
+    @Test
+    public void testNoMovesCompletesGeneration() {
+
+        Board board = Board.from("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        Assertions.assertTrue(movegen.generateMoves(board, MoveFilter.ALL, move -> false));
+
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class MoveListTest {
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testMoveListMatchesListApi() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MoveList moves = new MoveList();
+        for (MoveFilter filter : MoveFilter.values()) {
+            List<Move> expected = movegen.generateMoves(board, filter);
+            movegen.generateMoves(board, filter, moves);
+            Assertions.assertEquals(expected, moves.toList());
+        }
+
+    }
+
+    @Test
+    public void testMoveListIsClearedOnReuse() {
+
+        Board board = Board.from("8/k5P1/8/8/8/8/5rr1/7K w - - 0 1");
+        MoveList moves = new MoveList();
+        movegen.generateMoves(board, moves);
+        Assertions.assertEquals(4, moves.size());
+        movegen.generateMoves(board, moves);
+        Assertions.assertEquals(4, moves.size());
+        Assertions.assertEquals(Move.PROMOTE_TO_QUEEN_FLAG, moves.move(0).flag());
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.movegen.MoveGenerator.MoveFilter;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+public class MovePickerTest {
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testPicksAllMovesNoisyFirst() throws IOException {
+
+        for (String line : Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd"))) {
+            Board board = FEN.toBoard(line.split(";")[0]);
+            List<Move> noisy = movegen.generateMoves(board, MoveFilter.NOISY);
+            List<Move> picked = pickAll(new MovePicker(movegen, board, null));
+
+            Assertions.assertEquals(new HashSet<>(movegen.generateMoves(board)), new HashSet<>(picked), line);
+            Assertions.assertEquals(movegen.generateMoves(board).size(), picked.size(), line);
+            Assertions.assertEquals(noisy, picked.subList(0, noisy.size()), line);
+        }
+
+    }
+
+    @Test
+    public void testHashMoveFirstAndNotRepeated() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        for (Move hashMove : movegen.generateMoves(board)) {
+            List<Move> picked = pickAll(new MovePicker(movegen, board, hashMove));
+            Assertions.assertEquals(hashMove, picked.get(0));
+            Assertions.assertEquals(48, picked.size());
+            Assertions.assertEquals(48, new HashSet<>(picked).size());
+        }
+
+    }
+
+    @Test
+    public void testIllegalHashMoveIsSkipped() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        // Knight on e5 cannot reach e8, and it is black's king anyway
+        List<Move> picked = pickAll(new MovePicker(movegen, board, Move.fromUCI("e5e8")));
+        Assertions.assertEquals(48, picked.size());
+        Assertions.assertFalse(picked.contains(Move.fromUCI("e5e8")));
+
+    }
+
+    @Test
+    public void testQuietsNotGeneratedUntilNoisyExhausted() {
+
+        Board board = Board.from("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        MovePicker picker = new MovePicker(movegen, board, null);
+        Move first = picker.next();
+        Assertions.assertNotNull(first);
+        Assertions.assertTrue(movegen.generateMoves(board, MoveFilter.NOISY).contains(first));
+        Assertions.assertEquals(MovePicker.Stage.NOISY, picker.stage());
+
+    }
+
+    @Test
+    public void testResetReusesPicker() {
+
+        MovePicker picker = new MovePicker(movegen);
+        Assertions.assertNull(picker.next());
+
+        Board board = Board.from("8/k5P1/8/8/8/8/5rr1/7K w - - 0 1");
+        picker.reset(board, null);
+        Assertions.assertEquals(4, pickAll(picker).size());
+        picker.reset(board, null);
+        Assertions.assertEquals(4, pickAll(picker).size());
+
+    }
+
+    private List<Move> pickAll(MovePicker picker) {
+        List<Move> moves = new ArrayList<>();
+        Move move;
+        while ((move = picker.next()) != null) {
+            moves.add(move);
+        }
+        return moves;
+    }
+
+}
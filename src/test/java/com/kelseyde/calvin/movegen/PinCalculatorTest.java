@@ -16,11 +16,9 @@ public class PinCalculatorTest {
         String fen = "4nk2/5p2/8/8/8/2PP4/2K1N3/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
 
     }
 
@@ -30,11 +28,9 @@ public class PinCalculatorTest {
         String fen = "4qkb1/5pb1/8/8/8/2PP4/2KBB3/2Q5 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
 
     }
 
@@ -44,11 +40,9 @@ public class PinCalculatorTest {
         String fen = "4qkr1/5pr1/3r4/8/8/2PP2R1/2KRR3/2Q5 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
 
     }
 
@@ -58,11 +52,9 @@ public class PinCalculatorTest {
         String fen = "8/8/3rk3/8/8/3K4/8/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
 
     }
 
@@ -72,11 +64,9 @@ public class PinCalculatorTest {
         String fen = "8/8/4k3/5b2/8/3K4/8/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
 
     }
 
@@ -86,11 +76,9 @@ public class PinCalculatorTest {
         String fen = "5k2/4q3/4p3/8/8/8/8/4K3 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
     }
 
     @Test
@@ -99,11 +87,9 @@ public class PinCalculatorTest {
         String fen = "4k3/4r3/8/8/8/8/4P3/4K3 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 12, movegen.getPinMask());
+        Assertions.assertEquals(1L << 12, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, false));
 
     }
 
@@ -113,11 +99,9 @@ public class PinCalculatorTest {
         String fen = "4k3/4b3/8/8/8/8/4R3/4K3 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0L, movegen.getPinMask());
+        Assertions.assertEquals(0L, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 52, movegen.getPinMask());
+        Assertions.assertEquals(1L << 52, movegen.calculatePins(board, false));
 
     }
 
@@ -127,11 +111,9 @@ public class PinCalculatorTest {
         String fen = "8/3k4/3q4/8/8/3R4/3K4/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 19, movegen.getPinMask());
+        Assertions.assertEquals(1L << 19, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 43, movegen.getPinMask());
+        Assertions.assertEquals(1L << 43, movegen.calculatePins(board, false));
 
     }
 
@@ -141,11 +123,9 @@ public class PinCalculatorTest {
         String fen = "8/3k4/3q4/3q4/3R4/3R4/3K4/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -155,11 +135,9 @@ public class PinCalculatorTest {
         String fen = "4k3/4q3/4r3/8/4N3/4K3/8/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 28, movegen.getPinMask());
+        Assertions.assertEquals(1L << 28, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -169,11 +147,9 @@ public class PinCalculatorTest {
         String fen = "KR4nk/8/8/8/8/8/8/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 62, movegen.getPinMask());
+        Assertions.assertEquals(1L << 62, movegen.calculatePins(board, false));
 
     }
 
@@ -183,11 +159,9 @@ public class PinCalculatorTest {
         String fen = "KN4qk/8/8/8/8/8/8/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 57, movegen.getPinMask());
+        Assertions.assertEquals(1L << 57, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -197,11 +171,9 @@ public class PinCalculatorTest {
         String fen = "K1n5/2q5/nqr1B3/5r2/6k1/8/8/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 37, movegen.getPinMask());
+        Assertions.assertEquals(1L << 37, movegen.calculatePins(board, false));
 
     }
 
@@ -211,11 +183,9 @@ public class PinCalculatorTest {
         String fen = "8/8/8/8/1k6/2q5/3QK3/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 18, movegen.getPinMask());
+        Assertions.assertEquals(1L << 18, movegen.calculatePins(board, false));
 
     }
 
@@ -225,11 +195,9 @@ public class PinCalculatorTest {
         String fen = "7k/8/8/1b6/2N5/3R4/3QK3/8 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -239,11 +207,9 @@ public class PinCalculatorTest {
         String fen = "7k/6b1/8/8/8/8/1B6/1KRRRRR1 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 54, movegen.getPinMask());
+        Assertions.assertEquals(1L << 54, movegen.calculatePins(board, false));
 
     }
 
@@ -253,11 +219,9 @@ public class PinCalculatorTest {
         String fen = "5q2/4Q3/3K4/7r/7r/7r/7r/7k w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 52, movegen.getPinMask());
+        Assertions.assertEquals(1L << 52, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -267,11 +231,9 @@ public class PinCalculatorTest {
         String fen = "7K/8/8/4B3/3b4/8/8/k7 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 36, movegen.getPinMask());
+        Assertions.assertEquals(1L << 36, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(1L << 27, movegen.getPinMask());
+        Assertions.assertEquals(1L << 27, movegen.calculatePins(board, false));
 
     }
 
@@ -281,11 +243,9 @@ public class PinCalculatorTest {
         String fen = "7K/8/8/4B3/3b4/2b5/8/k7 w - - 0 1";
         Board board = FEN.toBoard(fen);
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 36, movegen.getPinMask());
+        Assertions.assertEquals(1L << 36, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -299,11 +259,9 @@ public class PinCalculatorTest {
         expectedPinMask |= 1L << 2;
         expectedPinMask |= 1L << 4;
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(expectedPinMask, movegen.getPinMask());
+        Assertions.assertEquals(expectedPinMask, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, false));
 
     }
 
@@ -317,11 +275,9 @@ public class PinCalculatorTest {
         expectedPinMask |= 1L << 20;
         expectedPinMask |= 1L << 36;
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(expectedPinMask, movegen.getPinMask());
+        Assertions.assertEquals(expectedPinMask, movegen.calculatePins(board, false));
 
     }
 
@@ -335,11 +291,9 @@ public class PinCalculatorTest {
         expectedPinMask |= 1L << 19;
         expectedPinMask |= 1L << 37;
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(0, movegen.getPinMask());
+        Assertions.assertEquals(0, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(expectedPinMask, movegen.getPinMask());
+        Assertions.assertEquals(expectedPinMask, movegen.calculatePins(board, false));
 
     }
 
@@ -353,11 +307,9 @@ public class PinCalculatorTest {
         expectedPinMask |= 1L << 35;
         expectedPinMask |= 1L << 21;
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(1L << 42, movegen.getPinMask());
+        Assertions.assertEquals(1L << 42, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(expectedPinMask, movegen.getPinMask());
+        Assertions.assertEquals(expectedPinMask, movegen.calculatePins(board, false));
     }
 
     @Test
@@ -376,11 +328,9 @@ public class PinCalculatorTest {
         expectedBlackPinMask |= 1L << 12;
         expectedBlackPinMask |= 1L << 13;
 
-        movegen.calculatePins(board, true);
-        Assertions.assertEquals(expectedWhitePinMask, movegen.getPinMask());
+        Assertions.assertEquals(expectedWhitePinMask, movegen.calculatePins(board, true));
 
-        movegen.calculatePins(board, false);
-        Assertions.assertEquals(expectedBlackPinMask, movegen.getPinMask());
+        Assertions.assertEquals(expectedBlackPinMask, movegen.calculatePins(board, false));
 
     }
 
@@ -1,5 +1,8 @@
 package com.kelseyde.calvin.movegen;
 
+import com.kelseyde.calvin.board.Bits;
+import com.kelseyde.calvin.board.File;
+import com.kelseyde.calvin.board.Rank;
 import com.kelseyde.calvin.board.Ray;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -279,4 +282,33 @@ public class RayBetweenTest {
 
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testLines() {
+
+        Assertions.assertEquals(0L, Ray.line(0, 17));
+        Assertions.assertEquals(0L, Ray.line(18, 18));
+        Assertions.assertEquals(Rank.FIRST, Ray.line(0, 2));
+        Assertions.assertEquals(File.E, Ray.line(60, 12));
+        Assertions.assertEquals(0x8040201008040201L, Ray.line(27, 9));
+        Assertions.assertEquals(0x0102040810204080L, Ray.line(35, 42));
+
+    }
+
+    @Test
+    public void testBetweenIsContainedInLine() {
+
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                long line = Ray.line(from, to);
+                long between = Ray.between(from, to);
+                Assertions.assertEquals(between, between & line);
+                Assertions.assertEquals(line, Ray.line(to, from));
+                if (line != 0) {
+                    Assertions.assertTrue(Bits.contains(line, from) && Bits.contains(line, to));
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.kelseyde.calvin.movegen;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class SharedMoveGeneratorTest {
+
+    private static final int THREADS = 4;
+
+    private final MoveGenerator movegen = new MoveGenerator();
+
+    @Test
+    public void testSharedAcrossThreads() throws Exception {
+
+        List<String> fens = Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd")).stream()
+                .map(line -> line.split(";")[0])
+                .toList();
+
+        List<Long> expected = new ArrayList<>();
+        for (String fen : fens) {
+            expected.add(countToDepthTwo(FEN.toBoard(fen)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Long>>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    List<Long> counts = new ArrayList<>();
+                    for (String fen : fens) {
+                        counts.add(countToDepthTwo(FEN.toBoard(fen)));
+                    }
+                    return counts;
+                }));
+            }
+            for (Future<List<Long>> future : futures) {
+                Assertions.assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    private long countToDepthTwo(Board board) {
+        long count = 0;
+        MoveList moves = new MoveList();
+        movegen.generateMoves(board, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.move(i);
+            board.makeMove(move);
+            count += movegen.countMoves(board);
+            count += movegen.generateMoves(board).size();
+            board.unmakeMove();
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.kelseyde.calvin.movegen.perft;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.utils.ParallelPerft;
+import com.kelseyde.calvin.utils.Perft;
+import com.kelseyde.calvin.utils.Perft.Result;
+import com.kelseyde.calvin.utils.PerftHashTable;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HashedPerftTest {
+
+    @Test
+    void testHashedPerftSuite() throws IOException {
+        final List<String> lines = Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd"));
+        final PerftHashTable hashTable = new PerftHashTable(16);
+        for (String line : lines) {
+            final String[] parts = line.split(";");
+            final long expected = Long.parseLong(parts[3].split(" ")[1].trim());
+            final Board board = FEN.toBoard(parts[0]);
+            final Result result = new Perft(hashTable).perft(board, 3);
+            assertEquals(expected, result.leafNodesCount(), parts[0]);
+        }
+    }
+
+    @Test
+    void testHashedParallelPerftMatchesSerial() {
+        final String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        final Result expected = new Perft().perft(FEN.toBoard(fen), 3);
+        final PerftHashTable hashTable = new PerftHashTable(1);
+        final ParallelPerft perft = new ParallelPerft(ForkJoinPool.commonPool(), 1, hashTable);
+        for (int i = 0; i < 2; i++) {
+            // The second run is served (partly) from the shared table
+            final Result actual = perft.perft(FEN.toBoard(fen), 3);
+            assertEquals(expected.leafNodesCount(), actual.leafNodesCount());
+            assertEquals(expected.divide(), actual.divide());
+        }
+    }
+
+    @Test
+    void testGetAndPut() {
+        final PerftHashTable hashTable = new PerftHashTable(1);
+        final long key = Board.from(FEN.STARTPOS).key();
+        assertEquals(-1, hashTable.get(key, 5));
+        hashTable.put(key, 5, 4865609);
+        assertEquals(4865609, hashTable.get(key, 5));
+        assertEquals(-1, hashTable.get(key, 4));
+        hashTable.clear();
+        assertEquals(-1, hashTable.get(key, 5));
+    }
+
+    @Test
+    void wrongSizeTest() {
+        assertThrows(IllegalArgumentException.class, () -> new PerftHashTable(0));
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.kelseyde.calvin.movegen.perft;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.ChessVariant;
+import com.kelseyde.calvin.utils.ParallelPerft;
+import com.kelseyde.calvin.utils.Perft;
+import com.kelseyde.calvin.utils.Perft.Result;
+import com.kelseyde.calvin.utils.Perft.Type;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelPerftTest {
+
+    private final ParallelPerft parallelPerft = new ParallelPerft(ForkJoinPool.commonPool(), 1);
+
+    @Test
+    void testMatchesSerialPerft() {
+        assertMatchesSerial(FEN.STARTPOS, 4, ChessVariant.STANDARD);
+        assertMatchesSerial("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", 3, ChessVariant.STANDARD);
+        assertMatchesSerial("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 4, ChessVariant.STANDARD);
+        assertMatchesSerial("bqnb1rkr/pp3ppp/3ppn2/2p5/5P2/P2P4/NPP1P1PP/BQ1BNRKR w HFhf - 2 9", 3, ChessVariant.CHESS960);
+    }
+
+    @Test
+    void testBoardIsNotModified() {
+        final Board board = Board.from(FEN.STARTPOS);
+        parallelPerft.perft(board, 3);
+        assertEquals(0, board.getPly());
+        assertEquals(Board.from(FEN.STARTPOS).key(), board.key());
+    }
+
+    @Test
+    void wrongSplitDepthTest() {
+        assertThrows(IllegalArgumentException.class, () -> new ParallelPerft(ForkJoinPool.commonPool(), 0));
+    }
+
+    private void assertMatchesSerial(String fen, int depth, ChessVariant variant) {
+        for (Type type : Type.values()) {
+            final Board board = FEN.toBoard(fen);
+            board.setVariant(variant);
+            final Result expected = new Perft().perft(board, depth, type);
+            final Result actual = parallelPerft.perft(board, depth, type);
+            assertEquals(expected.leafNodesCount(), actual.leafNodesCount());
+            assertEquals(expected.searchedNodesCount(), actual.searchedNodesCount());
+            assertEquals(expected.divide(), actual.divide());
+        }
+    }
+
+}
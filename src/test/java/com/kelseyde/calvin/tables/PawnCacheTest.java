@@ -0,0 +1,128 @@
+package com.kelseyde.calvin.tables;
+
+import com.kelseyde.calvin.board.Bits;
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.File;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.board.Rank;
+import com.kelseyde.calvin.board.Square;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PawnCacheTest {
+
+    @Test
+    void testMatchesSquareBySquareDefinitions() throws IOException {
+        final List<String> lines = Files.readAllLines(Paths.get("src/test/resources/perft_suite.epd"));
+        final PawnCache cache = new PawnCache(64);
+        for (String line : lines) {
+            final String fen = line.split(";")[0].trim();
+            final Board board = FEN.toBoard(fen);
+            final PawnCache.Entry entry = cache.get(board);
+            final long white = board.getPawns(true);
+            final long black = board.getPawns(false);
+            assertStructure(entry, white, black, true, fen);
+            // Flip the board vertically so that the same white-perspective definitions apply to black
+            final PawnCache.Entry flipped = new PawnCache.Entry();
+            flipped.compute(0L, Long.reverseBytes(black), Long.reverseBytes(white));
+            assertStructure(flipped, Long.reverseBytes(black), Long.reverseBytes(white), true, fen);
+            assertEquals(Long.reverseBytes(entry.passed(false)), flipped.passed(true), fen);
+            assertEquals(Long.reverseBytes(entry.isolated(false)), flipped.isolated(true), fen);
+            assertEquals(Long.reverseBytes(entry.doubled(false)), flipped.doubled(true), fen);
+            assertEquals(Long.reverseBytes(entry.backward(false)), flipped.backward(true), fen);
+            assertEquals(Long.reverseBytes(entry.attackSpans(false)), flipped.attackSpans(true), fen);
+            assertEquals(entry.halfOpenFiles(false), flipped.halfOpenFiles(true), fen);
+        }
+    }
+
+    @Test
+    void testKnownStructure() {
+        // White: a2, b2, c3, e4, e5, h5. Black: a7, b6, h7
+        final Board board = Board.from("4k3/p6p/1p6/4P2P/4P3/2P5/PP6/4K3 w - - 0 1");
+        final PawnCache.Entry entry = new PawnCache().get(board);
+        assertEquals(squares("e4", "e5"), entry.passed(true));
+        assertEquals(0L, entry.passed(false));
+        assertEquals(squares("e4", "e5", "h5"), entry.isolated(true));
+        assertEquals(squares("h7"), entry.isolated(false));
+        assertEquals(squares("e4"), entry.doubled(true));
+        assertEquals(File.D | File.F | File.G, entry.openFiles());
+        assertEquals(0L, entry.halfOpenFiles(true));
+        assertEquals(File.C | File.E, entry.halfOpenFiles(false));
+    }
+
+    @Test
+    void testCachesByPawnKey() {
+        final PawnCache cache = new PawnCache(16);
+        final Board board = Board.from(FEN.STARTPOS);
+        final PawnCache.Entry entry = cache.get(board);
+        assertEquals(~(Rank.FIRST | Rank.SECOND), entry.attackSpans(true));
+        // A knight move leaves the pawn key, and so the entry, unchanged
+        board.makeMove(Move.fromUCI("g1f3"));
+        assertSame(entry, cache.get(board));
+        assertEquals(0L, entry.passed(true));
+        cache.clear();
+        assertEquals(0L, cache.get(board).passed(true));
+    }
+
+    @Test
+    void wrongSizeTest() {
+        assertThrows(IllegalArgumentException.class, () -> new PawnCache(0));
+        assertEquals(8, new PawnCache(10).capacity());
+    }
+
+    private void assertStructure(PawnCache.Entry entry, long own, long enemy, boolean white, String fen) {
+        long passed = 0, isolated = 0, doubled = 0, backward = 0, spans = 0;
+        for (int sq : Bits.collect(own)) {
+            final int file = File.of(sq);
+            final int rank = Rank.of(sq);
+            if (!any(enemy, file - 1, file + 1, rank + 1, 7)) passed |= Bits.of(sq);
+            if (!any(own, file - 1, file - 1, 0, 7) && !any(own, file + 1, file + 1, 0, 7)) isolated |= Bits.of(sq);
+            if (any(own, file, file, rank + 1, 7)) doubled |= Bits.of(sq);
+            final boolean stopAttacked = any(enemy, file - 1, file - 1, rank + 2, rank + 2)
+                    || any(enemy, file + 1, file + 1, rank + 2, rank + 2);
+            final boolean supportable = any(own, file - 1, file - 1, 0, rank) || any(own, file + 1, file + 1, 0, rank);
+            if (stopAttacked && !supportable) backward |= Bits.of(sq);
+            for (int r = rank + 1; r < 8; r++) {
+                if (file > 0) spans |= Bits.of(Square.of(r, file - 1));
+                if (file < 7) spans |= Bits.of(Square.of(r, file + 1));
+            }
+        }
+        assertEquals(passed, entry.passed(white), fen);
+        assertEquals(isolated, entry.isolated(white), fen);
+        assertEquals(doubled, entry.doubled(white), fen);
+        assertEquals(backward, entry.backward(white), fen);
+        assertEquals(spans, entry.attackSpans(white), fen);
+        long open = 0;
+        for (int file = 0; file < 8; file++) {
+            if (!any(own | enemy, file, file, 0, 7)) open |= File.A << file;
+        }
+        assertEquals(open, entry.openFiles(), fen);
+    }
+
+    private boolean any(long pawns, int fromFile, int toFile, int fromRank, int toRank) {
+        for (int file = Math.max(0, fromFile); file <= Math.min(7, toFile); file++) {
+            for (int rank = Math.max(0, fromRank); rank <= Math.min(7, toRank); rank++) {
+                if (Bits.contains(pawns, Square.of(rank, file))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long squares(String... squares) {
+        long bb = 0L;
+        for (String square : squares) {
+            bb |= Bits.of(Square.fromNotation(square));
+        }
+        return bb;
+    }
+
+}
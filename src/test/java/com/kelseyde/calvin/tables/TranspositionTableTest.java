@@ -0,0 +1,169 @@
+package com.kelseyde.calvin.tables;
+
+import com.kelseyde.calvin.board.Board;
+import com.kelseyde.calvin.board.Move;
+import com.kelseyde.calvin.utils.notation.FEN;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void testProbeAndPut() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final long key = Board.from(FEN.STARTPOS).key();
+        assertEquals(0L, table.probe(key));
+
+        final Move move = Move.fromUCI("e2e4", Move.PAWN_DOUBLE_MOVE_FLAG);
+        table.put(key, move, -325, 12, TranspositionTable.LOWER);
+        final long data = table.probe(key);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(-325, TranspositionTable.score(data));
+        assertEquals(12, TranspositionTable.depth(data));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(data));
+        assertEquals(0L, table.probe(key + 1));
+    }
+
+    @Test
+    void testOverwriteKeepsMove() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final Move move = Move.fromUCI("g1f3");
+        table.put(42L, move, 10, 3, TranspositionTable.EXACT);
+        table.put(42L, null, 20, 4, TranspositionTable.UPPER);
+        final long data = table.probe(42L);
+        assertEquals(move, TranspositionTable.move(data));
+        assertEquals(20, TranspositionTable.score(data));
+        assertEquals(4, TranspositionTable.depth(data));
+    }
+
+    @Test
+    void testReplacesShallowestEntry() {
+        final TranspositionTable table = new TranspositionTable(1);
+        // Keys differing only in the upper bits share a bucket
+        for (int i = 0; i < 4; i++) {
+            table.put(key(i), null, 0, 10 + i, TranspositionTable.EXACT);
+        }
+        table.put(key(4), null, 0, 5, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(key(0)));
+        for (int i = 1; i <= 4; i++) {
+            assertNotEquals(0L, table.probe(key(i)));
+        }
+    }
+
+    @Test
+    void testReplacesOldEntriesFirst() {
+        final TranspositionTable table = new TranspositionTable(1);
+        for (int i = 0; i < 4; i++) {
+            table.put(key(i), null, 0, 10, TranspositionTable.EXACT);
+            if (i == 0) {
+                table.incrementAge();
+            }
+        }
+        table.put(key(4), null, 0, 10, TranspositionTable.EXACT);
+        assertEquals(0L, table.probe(key(0)));
+        assertNotEquals(0L, table.probe(key(4)));
+    }
+
+    @Test
+    void testHashfull() {
+        final TranspositionTable table = new TranspositionTable(1);
+        assertEquals(0, table.hashfull());
+        for (int i = 0; i < 125; i++) {
+            // Fill the first 125 buckets, i.e. 500 of the first 1000 entries
+            for (int j = 0; j < 4; j++) {
+                table.put(i | key(j), null, 0, 1, TranspositionTable.EXACT);
+            }
+        }
+        assertEquals(500, table.hashfull());
+        table.incrementAge();
+        assertEquals(0, table.hashfull());
+    }
+
+    @Test
+    void testClearAndResize() {
+        final TranspositionTable table = new TranspositionTable(1);
+        IntStream.range(0, 10000).forEach(i -> table.put(i * 0x9E3779B97F4A7C15L, null, i, 1, TranspositionTable.EXACT));
+        table.clear();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(0L, table.probe(i * 0x9E3779B97F4A7C15L));
+        }
+        table.resize(2);
+        assertEquals(2 * 1024 * 1024, table.size());
+    }
+
+    @Test
+    void testClearZeroesEveryBucketForAnyChunkCount() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final int buckets = (int) (table.size() / 64);
+        for (int chunks : new int[] {1, 2, 7, 9, 35, 36, 39, 64, buckets + 1}) {
+            // Keys 0 to buckets - 1 land in every bucket in turn
+            for (int i = 0; i < buckets; i++) {
+                table.put(i | key(1), null, 0, 1, TranspositionTable.EXACT);
+            }
+            table.clear(chunks);
+            for (int i = 0; i < buckets; i++) {
+                assertEquals(0L, table.probe(i | key(1)), "chunks " + chunks + ", bucket " + i);
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentWritesNeverReturnTornEntries() {
+        final TranspositionTable table = new TranspositionTable(1);
+        IntStream.range(0, 4).parallel().forEach(thread -> {
+            for (int i = 0; i < 100000; i++) {
+                final long key = mixedKey(i % 8);
+                // Each key always stores a score derived from the key, so a mismatch means a torn read
+                table.put(key, null, score(key), thread, TranspositionTable.EXACT);
+                final long data = table.probe(mixedKey(i % 7));
+                if (data != 0) {
+                    assertEquals(score(mixedKey(i % 7)), TranspositionTable.score(data));
+                }
+            }
+        });
+    }
+
+    @Test
+    void wrongSizeTest() {
+        assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+        final TranspositionTable table = new TranspositionTable(1);
+        assertThrows(IllegalArgumentException.class, () -> table.put(1L, null, 0, 1, 0));
+    }
+
+    @Test
+    void testRejectsOutOfRangeDepthAndScore() {
+        final TranspositionTable table = new TranspositionTable(1);
+        assertThrows(IllegalArgumentException.class, () -> table.put(1L, null, 0, -1, TranspositionTable.EXACT));
+        assertThrows(IllegalArgumentException.class, () -> table.put(1L, null, 0, 256, TranspositionTable.EXACT));
+        assertThrows(IllegalArgumentException.class, () -> table.put(1L, null, 40000, 1, TranspositionTable.EXACT));
+        assertThrows(IllegalArgumentException.class, () -> table.put(1L, null, -40000, 1, TranspositionTable.EXACT));
+        assertEquals(0L, table.probe(1L));
+
+        table.put(1L, null, Short.MIN_VALUE, 255, TranspositionTable.EXACT);
+        assertEquals(Short.MIN_VALUE, TranspositionTable.score(table.probe(1L)));
+        assertEquals(255, TranspositionTable.depth(table.probe(1L)));
+        table.put(1L, null, Short.MAX_VALUE, 0, TranspositionTable.EXACT);
+        assertEquals(Short.MAX_VALUE, TranspositionTable.score(table.probe(1L)));
+        assertEquals(0, TranspositionTable.depth(table.probe(1L)));
+    }
+
+    private static long key(int i) {
+        return (long) i << 32;
+    }
+
+    /**
+     * Like {@link #key(int)}, keys share a bucket, but the upper bits are well mixed as real Zobrist keys are. Keys
+     * differing in only a few bits could otherwise pass the XOR check against another key's data.
+     */
+    private static long mixedKey(int i) {
+        return ((i + 1) * 0x9E3779B97F4A7C15L) & 0xFFFFFFFF00000000L;
+    }
+
+    private static int score(long key) {
+        return (short) (key >>> 48);
+    }
+
+}